@@ -1,11 +1,15 @@
 package com.treecraft.core;
 
+import com.treecraft.core.api.events.TreeCraftEvents;
 import com.treecraft.core.compatibility.ModCompatibility;
 import com.treecraft.core.config.ConfigLoader;
+import com.treecraft.core.detection.ChunkPreIndexer;
 import com.treecraft.core.detection.TreeBlockDetector;
+import com.treecraft.core.network.ClassificationSync;
 import com.treecraft.core.registry.StyleLoader;
 import com.treecraft.core.registry.StyleRegistry;
 import com.treecraft.core.registry.TreeBlockRegistry;
+import net.minecraft.server.MinecraftServer;
 
 public class TreeCraftCore {
 
@@ -26,4 +30,29 @@ public class TreeCraftCore {
 
         Constants.LOG.info("TreeCraft Core initialized successfully!");
     }
+
+    /**
+     * Called by the loaders once a server has started
+     */
+    public static void onServerStarted(MinecraftServer server) {
+        ClassificationSync.onServerStarted();
+        StyleLoader.onServerStarted();
+    }
+
+    /**
+     * Called by the loaders at the end of every server tick
+     */
+    public static void onServerTick(MinecraftServer server) {
+        StyleLoader.applyPendingReloads();
+        ChunkPreIndexer.tick(server);
+        TreeCraftEvents.drainTickQueues();
+    }
+
+    /**
+     * Called by the loaders on the server thread after a server has stopped
+     */
+    public static void onServerStopped(MinecraftServer server) {
+        StyleLoader.onServerStopped();
+        ClassificationSync.onServerStopped();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.treecraft.core.api;
+
+import net.minecraft.util.RandomSource;
+
+/**
+ * Walker alias table for drawing indices with given weights in constant time.
+ * Built with Vose's method in O(n).
+ */
+final class AliasTable {
+    private final float[] probability;
+    private final int[] alias;
+
+    private AliasTable(float[] probability, int[] alias) {
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    static AliasTable of(float[] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (float weight : weights) {
+            total += weight;
+        }
+
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        float[] probability = new float[n];
+        int[] alias = new int[n];
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = (float) scaled[less];
+            alias[less] = more;
+
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Leftovers are 1 up to rounding error
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1.0f;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1.0f;
+        }
+        return new AliasTable(probability, alias);
+    }
+
+    int sample(RandomSource random) {
+        int column = random.nextInt(probability.length);
+        return random.nextFloat() < probability[column] ? column : alias[column];
+    }
+
+    int size() {
+        return probability.length;
+    }
+}
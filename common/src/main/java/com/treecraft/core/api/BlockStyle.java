@@ -1,22 +1,33 @@
 package com.treecraft.core.api;
 
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.RandomSource;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 public class BlockStyle {
     private final ResourceLocation id;
     private final String displayName;
     private final Map<TreeComponentType, List<BlockState>> blockPalette;
+    private final Map<TreeComponentType, float[]> weights;
+    private final Map<TreeComponentType, AliasTable> samplers = new EnumMap<>(TreeComponentType.class);
     private final StyleMetadata metadata;
 
-    private BlockStyle(ResourceLocation id, String displayName, Map<TreeComponentType, List<BlockState>> blockPalette, StyleMetadata metadata) {
+    private BlockStyle(ResourceLocation id, String displayName, Map<TreeComponentType, List<BlockState>> blockPalette,
+                       Map<TreeComponentType, float[]> weights, StyleMetadata metadata) {
         this.id = id;
         this.displayName = displayName;
         this.blockPalette = blockPalette;
+        this.weights = weights;
         this.metadata = metadata;
+        weights.forEach((type, componentWeights) -> {
+            if (componentWeights.length > 0) {
+                samplers.put(type, AliasTable.of(componentWeights));
+            }
+        });
     }
 
     public ResourceLocation getId() { return id; }
@@ -24,10 +35,48 @@ public class BlockStyle {
     public Map<TreeComponentType, List<BlockState>> getBlockPalette() { return blockPalette; }
     public StyleMetadata getMetadata() { return metadata; }
 
+    /**
+     * Get the sampling weight of a palette entry, by its index in {@link #getBlockPalette()}
+     */
+    public float getWeight(TreeComponentType type, int index) {
+        return weights.get(type)[index];
+    }
+
+    /**
+     * Pick a block of a component, weighted by the palette weights
+     *
+     * @return the block, or null if the component has no blocks
+     */
+    @Nullable
+    public BlockState sample(TreeComponentType type, RandomSource random) {
+        AliasTable sampler = samplers.get(type);
+        return sampler != null ? blockPalette.get(type).get(sampler.sample(random)) : null;
+    }
+
+    /**
+     * Pick {@code count} blocks of a component at once
+     *
+     * @return the blocks, or an empty array if the component has no blocks
+     */
+    public BlockState[] sample(TreeComponentType type, RandomSource random, int count) {
+        AliasTable sampler = samplers.get(type);
+        if (sampler == null) {
+            return new BlockState[0];
+        }
+
+        List<BlockState> palette = blockPalette.get(type);
+        BlockState[] result = new BlockState[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = palette.get(sampler.sample(random));
+        }
+        return result;
+    }
+
     public static class Builder {
         private ResourceLocation id;
         private String displayName;
         private final Map<TreeComponentType, List<BlockState>> blockPalette = new EnumMap<>(TreeComponentType.class);
+        private final Map<TreeComponentType, List<Float>> weights = new EnumMap<>(TreeComponentType.class);
         private StyleMetadata metadata;
 
         public Builder id(ResourceLocation id) {
@@ -60,6 +109,23 @@ public class BlockStyle {
             return this;
         }
 
+        public Builder blocks(TreeComponentType type, Block... blocks) {
+            addBlocks(type, blocks);
+            return this;
+        }
+
+        /**
+         * Add a block with a sampling weight; blocks added without one weigh 1
+         */
+        public Builder weighted(TreeComponentType type, Block block, float weight) {
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("Palette weight must be positive: " + weight);
+            }
+            blockPalette.computeIfAbsent(type, k -> new ArrayList<>()).add(block.defaultBlockState());
+            weights.computeIfAbsent(type, k -> new ArrayList<>()).add(weight);
+            return this;
+        }
+
         public Builder metadata(StyleMetadata meta) {
             this.metadata = meta;
             return this;
@@ -67,8 +133,10 @@ public class BlockStyle {
 
         private void addBlocks(TreeComponentType type, Block... blocks) {
             List<BlockState> states = blockPalette.computeIfAbsent(type, k -> new ArrayList<>());
+            List<Float> typeWeights = weights.computeIfAbsent(type, k -> new ArrayList<>());
             for (Block block : blocks) {
                 states.add(block.defaultBlockState());
+                typeWeights.add(1.0f);
             }
         }
 
@@ -76,7 +144,15 @@ public class BlockStyle {
             if (id == null) {
                 throw new IllegalStateException("ID is required for BlockStyle");
             }
-            return new BlockStyle(id, displayName, blockPalette, metadata);
+            Map<TreeComponentType, float[]> weightArrays = new EnumMap<>(TreeComponentType.class);
+            weights.forEach((type, typeWeights) -> {
+                float[] array = new float[typeWeights.size()];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = typeWeights.get(i);
+                }
+                weightArrays.put(type, array);
+            });
+            return new BlockStyle(id, displayName, blockPalette, weightArrays, metadata);
         }
     }
 }
\ No newline at end of file
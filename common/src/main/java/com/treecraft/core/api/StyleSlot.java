@@ -0,0 +1,36 @@
+package com.treecraft.core.api;
+
+import java.util.Objects;
+
+/**
+ * A style together with the component slot of its palette that holds a block
+ */
+public final class StyleSlot {
+    private final BlockStyle style;
+    private final TreeComponentType component;
+
+    public StyleSlot(BlockStyle style, TreeComponentType component) {
+        this.style = style;
+        this.component = component;
+    }
+
+    public BlockStyle getStyle() { return style; }
+    public TreeComponentType getComponent() { return component; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StyleSlot other)) return false;
+        return style == other.style && component == other.component;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(style), component);
+    }
+
+    @Override
+    public String toString() {
+        return style.getId() + "/" + component;
+    }
+}
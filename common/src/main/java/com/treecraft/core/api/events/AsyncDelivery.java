@@ -0,0 +1,92 @@
+package com.treecraft.core.api.events;
+
+import java.util.function.Function;
+
+/**
+ * Options for delivering events to a listener off the posting thread. Events are queued in a
+ * bounded per-listener queue and handed to the listener either by a shared event thread or at
+ * the end of the next server tick.
+ */
+public class AsyncDelivery<E> {
+    private final int capacity;
+    private final OverflowPolicy overflow;
+    private final Function<? super E, ?> coalesceKey;
+    private final long blockTimeoutMs;
+    private final boolean drainOnServerTick;
+
+    private AsyncDelivery(Builder<E> builder) {
+        this.capacity = builder.capacity;
+        this.overflow = builder.overflow;
+        this.coalesceKey = builder.coalesceKey;
+        this.blockTimeoutMs = builder.blockTimeoutMs;
+        this.drainOnServerTick = builder.drainOnServerTick;
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>();
+    }
+
+    public int getCapacity() { return capacity; }
+    public OverflowPolicy getOverflow() { return overflow; }
+    public Function<? super E, ?> getCoalesceKey() { return coalesceKey; }
+    public long getBlockTimeoutMs() { return blockTimeoutMs; }
+    public boolean isDrainOnServerTick() { return drainOnServerTick; }
+
+    public static class Builder<E> {
+        private int capacity = 1024;
+        private OverflowPolicy overflow = OverflowPolicy.DROP_OLDEST;
+        private Function<? super E, ?> coalesceKey;
+        private long blockTimeoutMs = 50;
+        private boolean drainOnServerTick = false;
+
+        public Builder<E> capacity(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be positive");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder<E> overflow(OverflowPolicy overflow) {
+            this.overflow = overflow;
+            return this;
+        }
+
+        /**
+         * Coalesce queued events by key, keeping only the newest event per key
+         */
+        public Builder<E> coalesceBy(Function<? super E, ?> key) {
+            this.overflow = OverflowPolicy.COALESCE;
+            this.coalesceKey = key;
+            return this;
+        }
+
+        /**
+         * Maximum time a {@link OverflowPolicy#BLOCK} subscription stalls the posting thread
+         */
+        public Builder<E> blockTimeoutMs(long blockTimeoutMs) {
+            this.blockTimeoutMs = blockTimeoutMs;
+            return this;
+        }
+
+        /**
+         * Deliver on the server thread at the end of each tick instead of on the event thread.
+         * Cannot be combined with {@link OverflowPolicy#BLOCK}, since events are mostly posted
+         * on the server thread that would have to drain the queue.
+         */
+        public Builder<E> drainOnServerTick() {
+            this.drainOnServerTick = true;
+            return this;
+        }
+
+        public AsyncDelivery<E> build() {
+            if (overflow == OverflowPolicy.COALESCE && coalesceKey == null) {
+                throw new IllegalStateException("COALESCE overflow requires a coalesce key");
+            }
+            if (overflow == OverflowPolicy.BLOCK && drainOnServerTick) {
+                throw new IllegalStateException("BLOCK overflow cannot be drained on the server tick");
+            }
+            return new AsyncDelivery<>(this);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.treecraft.core.api.events;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.treecraft.core.Constants;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue between the posting thread and an asynchronous listener. Registered with a
+ * {@link ListenerList} in place of the listener itself, so posting only enqueues.
+ * <p>
+ * Thread-drained queues share one event thread and are drained in small batches, so a slow
+ * listener delays the others without starving them. Tick-drained queues are emptied by
+ * {@link #drainTickQueues()} at the end of every server tick.
+ */
+final class AsyncEventQueue<E> implements Consumer<E>, EventSubscription {
+    private static final int BATCH_SIZE = 64;
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("TreeCraft-Events")
+            .setDaemon(true)
+            .build()
+    );
+    private static final List<AsyncEventQueue<?>> TICK_QUEUES = new CopyOnWriteArrayList<>();
+
+    private final Consumer<? super E> listener;
+    private final String eventName;
+    private final AsyncDelivery<E> delivery;
+    private final ListenerList<E> owner;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<E> queue = new ArrayDeque<>();
+    private final LinkedHashMap<Object, E> coalesced = new LinkedHashMap<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile boolean cancelled;
+
+    AsyncEventQueue(Consumer<? super E> listener, String eventName, AsyncDelivery<E> delivery, ListenerList<E> owner) {
+        this.listener = listener;
+        this.eventName = eventName;
+        this.delivery = delivery;
+        this.owner = owner;
+        if (delivery.isDrainOnServerTick()) {
+            TICK_QUEUES.add(this);
+        }
+    }
+
+    /**
+     * Deliver the events queued for tick-drained subscriptions. Events posted by the listeners
+     * themselves wait for the next tick.
+     */
+    static void drainTickQueues() {
+        for (AsyncEventQueue<?> queue : TICK_QUEUES) {
+            queue.drain(queue.getQueueDepth());
+        }
+    }
+
+    @Override
+    public void accept(E event) {
+        if (cancelled) return;
+
+        lock.lock();
+        try {
+            if (delivery.getOverflow() == OverflowPolicy.COALESCE) {
+                Object key = delivery.getCoalesceKey().apply(event);
+                if (coalesced.containsKey(key)) {
+                    // Keeps the queue position of the first event with this key
+                    coalesced.put(key, event);
+                    coalescedCount.incrementAndGet();
+                    return;
+                }
+                if (coalesced.size() >= delivery.getCapacity()) {
+                    Iterator<E> oldest = coalesced.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped.incrementAndGet();
+                }
+                coalesced.put(key, event);
+            } else {
+                if (queue.size() >= delivery.getCapacity() && delivery.getOverflow() == OverflowPolicy.BLOCK) {
+                    awaitSpace();
+                }
+                if (queue.size() >= delivery.getCapacity()) {
+                    queue.pollFirst();
+                    dropped.incrementAndGet();
+                }
+                queue.addLast(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        schedule();
+    }
+
+    private void awaitSpace() {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(delivery.getBlockTimeoutMs());
+        try {
+            while (queue.size() >= delivery.getCapacity() && remaining > 0 && !cancelled) {
+                remaining = notFull.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedule() {
+        if (!delivery.isDrainOnServerTick() && scheduled.compareAndSet(false, true)) {
+            EXECUTOR.execute(this::drainBatch);
+        }
+    }
+
+    private void drainBatch() {
+        drain(BATCH_SIZE);
+        scheduled.set(false);
+        if (getQueueDepth() > 0) {
+            schedule();
+        }
+    }
+
+    private void drain(int max) {
+        for (int i = 0; i < max && !cancelled; i++) {
+            E event = poll();
+            if (event == null) return;
+
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                Constants.LOG.error("Error in async " + eventName + " listener", e);
+            }
+            delivered.incrementAndGet();
+        }
+    }
+
+    private E poll() {
+        lock.lock();
+        try {
+            E event;
+            if (delivery.getOverflow() == OverflowPolicy.COALESCE) {
+                Iterator<E> oldest = coalesced.values().iterator();
+                if (!oldest.hasNext()) return null;
+                event = oldest.next();
+                oldest.remove();
+            } else {
+                event = queue.pollFirst();
+            }
+            if (event != null) {
+                notFull.signal();
+            }
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size() + coalesced.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    @Override
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    @Override
+    public void unsubscribe() {
+        owner.remove(this);
+        close();
+    }
+
+    /**
+     * Stop delivery and discard queued events without touching the listener list
+     */
+    void close() {
+        cancelled = true;
+        TICK_QUEUES.remove(this);
+
+        lock.lock();
+        try {
+            queue.clear();
+            coalesced.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.treecraft.core.api.events;
+
+import com.treecraft.core.api.TreeComponentType;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+
+import javax.annotation.Nullable;
+
+/**
+ * Subscription filter for tree events. Component types are kept as a bitmask so the bus can
+ * reject events with a single AND before invoking a listener.
+ */
+public class EventFilter {
+    static final int ALL_TYPES = (1 << TreeComponentType.values().length) - 1;
+
+    private final int typeMask;
+    private final ResourceKey<Level> dimension;
+    private final float minConfidence;
+    private final AABB region;
+
+    private EventFilter(Builder builder) {
+        this.typeMask = builder.typeMask;
+        this.dimension = builder.dimension;
+        this.minConfidence = builder.minConfidence;
+        this.region = builder.region;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static int typeBit(TreeComponentType type) {
+        return 1 << type.ordinal();
+    }
+
+    int getTypeMask() {
+        return typeMask;
+    }
+
+    /**
+     * Check a single classified block
+     */
+    public boolean matchesBlock(@Nullable Level level, BlockPos pos, TreeComponentType type, float confidence) {
+        return (typeMask & typeBit(type)) != 0
+            && confidence >= minConfidence
+            && matchesDimension(level)
+            && (region == null || region.contains(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5));
+    }
+
+    /**
+     * Check a tree structure, given the bitmask of component types it contains
+     */
+    public boolean matchesStructure(@Nullable Level level, int structureTypeMask, @Nullable AABB box) {
+        return (typeMask & structureTypeMask) != 0
+            && matchesDimension(level)
+            && (region == null || box != null && region.intersects(box));
+    }
+
+    private boolean matchesDimension(@Nullable Level level) {
+        return dimension == null || level != null && dimension.equals(level.dimension());
+    }
+
+    public static class Builder {
+        private int typeMask = ALL_TYPES;
+        private ResourceKey<Level> dimension;
+        private float minConfidence = 0.0f;
+        private AABB region;
+
+        /**
+         * Only accept the given component types
+         */
+        public Builder types(TreeComponentType... types) {
+            typeMask = 0;
+            for (TreeComponentType type : types) {
+                typeMask |= typeBit(type);
+            }
+            return this;
+        }
+
+        public Builder dimension(ResourceKey<Level> dimension) {
+            this.dimension = dimension;
+            return this;
+        }
+
+        public Builder minConfidence(float minConfidence) {
+            this.minConfidence = minConfidence;
+            return this;
+        }
+
+        public Builder region(AABB region) {
+            this.region = region;
+            return this;
+        }
+
+        public EventFilter build() {
+            return new EventFilter(this);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.treecraft.core.api.events;
+
+/**
+ * Handle for an asynchronous listener subscription
+ */
+public interface EventSubscription {
+    /**
+     * Get number of events waiting to be delivered
+     */
+    int getQueueDepth();
+
+    /**
+     * Get number of events discarded because the queue was full
+     */
+    long getDroppedCount();
+
+    /**
+     * Get number of events replaced by a newer event with the same coalesce key
+     */
+    long getCoalescedCount();
+
+    /**
+     * Get number of events handed to the listener
+     */
+    long getDeliveredCount();
+
+    /**
+     * Stop receiving events. Events still queued are discarded.
+     */
+    void unsubscribe();
+}
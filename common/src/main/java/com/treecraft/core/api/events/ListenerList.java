@@ -0,0 +1,140 @@
+package com.treecraft.core.api.events;
+
+import com.treecraft.core.Constants;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Copy-on-write listener array. Registration copies the array and publishes it through a
+ * volatile field; posting iterates the current snapshot without taking a lock, so listeners
+ * may register or post other events from inside a callback.
+ * <p>
+ * The snapshot also carries the union of the subscribers' component type masks, so callers
+ * can skip building events that no subscriber would accept.
+ */
+final class ListenerList<E> {
+    private final String eventName;
+    @SuppressWarnings("unchecked")
+    private volatile Snapshot<E> snapshot = new Snapshot<>(new Subscription[0], 0, false);
+
+    ListenerList(String eventName) {
+        this.eventName = eventName;
+    }
+
+    void add(Consumer<? super E> listener) {
+        add(listener, null);
+    }
+
+    synchronized void add(Consumer<? super E> listener, @Nullable EventFilter filter) {
+        Snapshot<E> current = snapshot;
+        Subscription<E>[] updated = Arrays.copyOf(current.subscriptions, current.subscriptions.length + 1);
+        updated[current.subscriptions.length] = new Subscription<>(listener, filter);
+        int typeMask = current.typeMask | (filter != null ? filter.getTypeMask() : EventFilter.ALL_TYPES);
+        snapshot = new Snapshot<>(updated, typeMask, current.filtered || filter != null);
+    }
+
+    /**
+     * Subscribe through a bounded queue drained off the posting thread
+     */
+    EventSubscription addAsync(Consumer<? super E> listener, @Nullable EventFilter filter, AsyncDelivery<E> delivery) {
+        AsyncEventQueue<E> queue = new AsyncEventQueue<>(listener, eventName, delivery, this);
+        add(queue, filter);
+        return queue;
+    }
+
+    /**
+     * Remove the first subscription of a listener
+     */
+    synchronized boolean remove(Consumer<? super E> listener) {
+        Subscription<E>[] current = snapshot.subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].listener == listener) {
+                @SuppressWarnings("unchecked")
+                Subscription<E>[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+
+                int typeMask = 0;
+                boolean filtered = false;
+                for (Subscription<E> subscription : updated) {
+                    typeMask |= subscription.filter != null ? subscription.filter.getTypeMask() : EventFilter.ALL_TYPES;
+                    filtered |= subscription.filter != null;
+                }
+                snapshot = new Snapshot<>(updated, typeMask, filtered);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized void clear() {
+        for (Subscription<E> subscription : snapshot.subscriptions) {
+            if (subscription.listener instanceof AsyncEventQueue<?> queue) {
+                queue.close();
+            }
+        }
+        snapshot = new Snapshot<>(new Subscription[0], 0, false);
+    }
+
+    boolean isEmpty() {
+        return snapshot.subscriptions.length == 0;
+    }
+
+    /**
+     * Check if any subscriber accepts at least one of the types in a mask
+     */
+    boolean wantsAny(int typeMask) {
+        return (snapshot.typeMask & typeMask) != 0;
+    }
+
+    void post(E event) {
+        post(event, null);
+    }
+
+    /**
+     * Post to every subscriber whose filter passes the matcher built for the event; unfiltered
+     * subscribers always receive the event. The matcher is only built if the current snapshot
+     * has a filtered subscriber.
+     */
+    void post(E event, @Nullable Function<? super E, ? extends Predicate<EventFilter>> matcherFactory) {
+        Snapshot<E> current = snapshot;
+        Predicate<EventFilter> matcher = current.filtered && matcherFactory != null ? matcherFactory.apply(event) : null;
+        for (Subscription<E> subscription : current.subscriptions) {
+            if (matcher != null && subscription.filter != null && !matcher.test(subscription.filter)) {
+                continue;
+            }
+            try {
+                subscription.listener.accept(event);
+            } catch (Exception e) {
+                Constants.LOG.error("Error in " + eventName + " listener", e);
+            }
+        }
+    }
+
+    private static final class Subscription<E> {
+        final Consumer<? super E> listener;
+        final EventFilter filter;
+
+        Subscription(Consumer<? super E> listener, @Nullable EventFilter filter) {
+            this.listener = listener;
+            this.filter = filter;
+        }
+    }
+
+    private static final class Snapshot<E> {
+        final Subscription<E>[] subscriptions;
+        final int typeMask;
+        final boolean filtered;
+
+        Snapshot(Subscription<E>[] subscriptions, int typeMask, boolean filtered) {
+            this.subscriptions = subscriptions;
+            this.typeMask = typeMask;
+            this.filtered = filtered;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.treecraft.core.api.events;
+
+/**
+ * What an asynchronous subscription does when its queue is full
+ */
+public enum OverflowPolicy {
+    /** Discard the oldest queued event to make room */
+    DROP_OLDEST,
+    /** Replace a queued event with the same coalesce key; otherwise discard the oldest */
+    COALESCE,
+    /** Wait for the event thread to make room, up to the block timeout, then discard the oldest */
+    BLOCK
+}
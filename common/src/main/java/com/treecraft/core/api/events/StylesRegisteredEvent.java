@@ -0,0 +1,42 @@
+package com.treecraft.core.api.events;
+
+import com.treecraft.core.api.BlockStyle;
+import net.minecraft.resources.ResourceLocation;
+
+import java.util.List;
+
+/**
+ * All styles applied by one registration commit, delivered as a single event
+ */
+public class StylesRegisteredEvent {
+    private final List<BlockStyle> added;
+    private final List<BlockStyle> replaced;
+    private final List<ResourceLocation> removed;
+
+    public StylesRegisteredEvent(List<BlockStyle> added, List<BlockStyle> replaced) {
+        this(added, replaced, List.of());
+    }
+
+    public StylesRegisteredEvent(List<BlockStyle> added, List<BlockStyle> replaced, List<ResourceLocation> removed) {
+        this.added = List.copyOf(added);
+        this.replaced = List.copyOf(replaced);
+        this.removed = List.copyOf(removed);
+    }
+
+    /**
+     * Get styles whose id was not registered before
+     */
+    public List<BlockStyle> getAddedStyles() { return added; }
+
+    /**
+     * Get styles that overwrote a style with the same id
+     */
+    public List<BlockStyle> getReplacedStyles() { return replaced; }
+
+    /**
+     * Get ids of styles unregistered by the same commit, e.g. when a style file was deleted
+     */
+    public List<ResourceLocation> getRemovedIds() { return removed; }
+
+    public int size() { return added.size() + replaced.size() + removed.size(); }
+}
@@ -0,0 +1,72 @@
+package com.treecraft.core.api.events;
+
+import com.treecraft.core.api.TreeComponentType;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.Arrays;
+
+/**
+ * All block classifications of one tree detection pass, delivered as a single event.
+ * Entries are stored in parallel arrays and addressed by index, positions packed with
+ * {@link BlockPos#asLong()}.
+ */
+public class TreeBlocksDetectedEvent {
+    private static final TreeComponentType[] TYPES = TreeComponentType.values();
+
+    private final Level level;
+    private final BlockPos startPos;
+    private final int size;
+    private final long[] positions;
+    private final BlockState[] blocks;
+    private final byte[] types;
+    private final float[] confidences;
+
+    private TreeBlocksDetectedEvent(Level level, BlockPos startPos, Builder builder) {
+        this.level = level;
+        this.startPos = startPos;
+        this.size = builder.size;
+        this.positions = builder.positions;
+        this.blocks = builder.blocks;
+        this.types = builder.types;
+        this.confidences = builder.confidences;
+    }
+
+    public Level getLevel() { return level; }
+    public BlockPos getStartPos() { return startPos; }
+    public int size() { return size; }
+    public long getPackedPos(int index) { return positions[index]; }
+    public BlockPos getPos(int index) { return BlockPos.of(positions[index]); }
+    public BlockState getBlock(int index) { return blocks[index]; }
+    public TreeComponentType getDetectedType(int index) { return TYPES[types[index]]; }
+    public float getConfidence(int index) { return confidences[index]; }
+
+    public static class Builder {
+        private int size;
+        private long[] positions = new long[64];
+        private BlockState[] blocks = new BlockState[64];
+        private byte[] types = new byte[64];
+        private float[] confidences = new float[64];
+
+        public Builder add(BlockPos pos, BlockState block, TreeComponentType type, float confidence) {
+            if (size == positions.length) {
+                int capacity = size * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                blocks = Arrays.copyOf(blocks, capacity);
+                types = Arrays.copyOf(types, capacity);
+                confidences = Arrays.copyOf(confidences, capacity);
+            }
+            positions[size] = pos.asLong();
+            blocks[size] = block;
+            types[size] = (byte) type.ordinal();
+            confidences[size] = confidence;
+            size++;
+            return this;
+        }
+
+        public TreeBlocksDetectedEvent build(Level level, BlockPos startPos) {
+            return new TreeBlocksDetectedEvent(level, startPos, this);
+        }
+    }
+}
@@ -1,61 +1,169 @@
 package com.treecraft.core.api.events;
 
-import com.treecraft.core.Constants;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.detection.TreeStructure;
+
+import javax.annotation.Nullable;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class TreeCraftEvents {
-    private static final List<Consumer<TreeDetectedEvent>> TREE_DETECTED_LISTENERS = Collections.synchronizedList(new ArrayList<>());
-    private static final List<Consumer<TreeStructureDetectedEvent>> STRUCTURE_DETECTED_LISTENERS = Collections.synchronizedList(new ArrayList<>());
-    private static final List<Consumer<StyleRegisteredEvent>> STYLE_REGISTERED_LISTENERS = Collections.synchronizedList(new ArrayList<>());
+    private static final ListenerList<TreeDetectedEvent> TREE_DETECTED_LISTENERS = new ListenerList<>("TreeDetectedEvent");
+    private static final ListenerList<TreeBlocksDetectedEvent> BLOCKS_DETECTED_LISTENERS = new ListenerList<>("TreeBlocksDetectedEvent");
+    private static final ListenerList<TreeStructureDetectedEvent> STRUCTURE_DETECTED_LISTENERS = new ListenerList<>("TreeStructureDetectedEvent");
+    private static final ListenerList<StyleRegisteredEvent> STYLE_REGISTERED_LISTENERS = new ListenerList<>("StyleRegisteredEvent");
+    private static final ListenerList<StylesRegisteredEvent> STYLES_REGISTERED_LISTENERS = new ListenerList<>("StylesRegisteredEvent");
+
+    // Only invoked when a filtered subscriber is present, so unfiltered posts allocate nothing
+    private static final Function<TreeDetectedEvent, Predicate<EventFilter>> BLOCK_MATCHER = event ->
+        filter -> filter.matchesBlock(event.getLevel(), event.getPos(), event.getDetectedType(), event.getConfidence());
+    private static final Function<TreeStructureDetectedEvent, Predicate<EventFilter>> STRUCTURE_MATCHER = event -> {
+        TreeStructure structure = event.getStructure();
+        int typeMask = typeMask(structure);
+        return filter -> filter.matchesStructure(event.getLevel(), typeMask, structure.getBoundingBox());
+    };
 
     public static void onTreeDetected(Consumer<TreeDetectedEvent> listener) {
         TREE_DETECTED_LISTENERS.add(listener);
     }
 
+    /**
+     * Receive all block classifications of a tree detection pass as one event
+     */
+    public static void onTreeBlocksDetected(Consumer<TreeBlocksDetectedEvent> listener) {
+        BLOCKS_DETECTED_LISTENERS.add(listener);
+    }
+
+    /**
+     * Receive only the block classifications accepted by a filter
+     */
+    public static void onTreeDetected(Consumer<TreeDetectedEvent> listener, EventFilter filter) {
+        TREE_DETECTED_LISTENERS.add(listener, filter);
+    }
+
     public static void onStructureDetected(Consumer<TreeStructureDetectedEvent> listener) {
         STRUCTURE_DETECTED_LISTENERS.add(listener);
     }
 
+    /**
+     * Receive only the structures accepted by a filter. A structure matches the type filter if it
+     * contains any of the filtered component types; minimum confidence does not apply.
+     */
+    public static void onStructureDetected(Consumer<TreeStructureDetectedEvent> listener, EventFilter filter) {
+        STRUCTURE_DETECTED_LISTENERS.add(listener, filter);
+    }
+
     public static void onStyleRegistered(Consumer<StyleRegisteredEvent> listener) {
         STYLE_REGISTERED_LISTENERS.add(listener);
     }
 
+    /**
+     * Receive every style registration commit as one event, instead of one event per style
+     */
+    public static void onStylesRegistered(Consumer<StylesRegisteredEvent> listener) {
+        STYLES_REGISTERED_LISTENERS.add(listener);
+    }
+
+    /**
+     * Receive block classifications off the detecting thread through a bounded queue
+     *
+     * @param filter optional filter, applied before queueing
+     */
+    public static EventSubscription onTreeDetected(Consumer<TreeDetectedEvent> listener, @Nullable EventFilter filter, AsyncDelivery<TreeDetectedEvent> delivery) {
+        return TREE_DETECTED_LISTENERS.addAsync(listener, filter, delivery);
+    }
+
+    public static EventSubscription onTreeBlocksDetected(Consumer<TreeBlocksDetectedEvent> listener, AsyncDelivery<TreeBlocksDetectedEvent> delivery) {
+        return BLOCKS_DETECTED_LISTENERS.addAsync(listener, null, delivery);
+    }
+
+    public static EventSubscription onStructureDetected(Consumer<TreeStructureDetectedEvent> listener, @Nullable EventFilter filter, AsyncDelivery<TreeStructureDetectedEvent> delivery) {
+        return STRUCTURE_DETECTED_LISTENERS.addAsync(listener, filter, delivery);
+    }
+
+    public static EventSubscription onStyleRegistered(Consumer<StyleRegisteredEvent> listener, AsyncDelivery<StyleRegisteredEvent> delivery) {
+        return STYLE_REGISTERED_LISTENERS.addAsync(listener, null, delivery);
+    }
+
+    public static EventSubscription onStylesRegistered(Consumer<StylesRegisteredEvent> listener, AsyncDelivery<StylesRegisteredEvent> delivery) {
+        return STYLES_REGISTERED_LISTENERS.addAsync(listener, null, delivery);
+    }
+
+    /**
+     * Check before building a {@link TreeDetectedEvent}, so no event is allocated when nobody listens
+     */
+    public static boolean hasTreeDetectedListeners() {
+        return !TREE_DETECTED_LISTENERS.isEmpty();
+    }
+
+    /**
+     * Check if any {@link TreeDetectedEvent} subscriber accepts blocks of a component type
+     */
+    public static boolean hasTreeDetectedListeners(TreeComponentType type) {
+        return TREE_DETECTED_LISTENERS.wantsAny(EventFilter.typeBit(type));
+    }
+
+    public static boolean hasTreeBlocksDetectedListeners() {
+        return !BLOCKS_DETECTED_LISTENERS.isEmpty();
+    }
+
+    public static boolean hasStructureDetectedListeners() {
+        return !STRUCTURE_DETECTED_LISTENERS.isEmpty();
+    }
+
+    public static boolean hasStyleRegisteredListeners() {
+        return !STYLE_REGISTERED_LISTENERS.isEmpty();
+    }
+
+    public static boolean hasStylesRegisteredListeners() {
+        return !STYLES_REGISTERED_LISTENERS.isEmpty();
+    }
+
     public static void post(TreeDetectedEvent event) {
-        synchronized(TREE_DETECTED_LISTENERS) {
-            TREE_DETECTED_LISTENERS.forEach(l -> {
-                try {
-                    l.accept(event);
-                } catch (Exception e) {
-                    Constants.LOG.error("Error in TreeDetectedEvent listener", e);
-                }
-            });
-        }
+        TREE_DETECTED_LISTENERS.post(event, BLOCK_MATCHER);
+    }
+
+    public static void post(TreeBlocksDetectedEvent event) {
+        BLOCKS_DETECTED_LISTENERS.post(event);
     }
 
     public static void post(TreeStructureDetectedEvent event) {
-        synchronized(STRUCTURE_DETECTED_LISTENERS) {
-            STRUCTURE_DETECTED_LISTENERS.forEach(l -> {
-                try {
-                    l.accept(event);
-                } catch (Exception e) {
-                    Constants.LOG.error("Error in TreeStructureDetectedEvent listener", e);
-                }
-            });
+        STRUCTURE_DETECTED_LISTENERS.post(event, STRUCTURE_MATCHER);
+    }
+
+    private static int typeMask(TreeStructure structure) {
+        int typeMask = 0;
+        for (TreeComponentType type : TreeComponentType.values()) {
+            if (!structure.getComponentsOfType(type).isEmpty()) {
+                typeMask |= EventFilter.typeBit(type);
+            }
         }
+        return typeMask;
     }
 
     public static void post(StyleRegisteredEvent event) {
-        synchronized(STYLE_REGISTERED_LISTENERS) {
-            STYLE_REGISTERED_LISTENERS.forEach(l -> {
-                try {
-                    l.accept(event);
-                } catch (Exception e) {
-                    Constants.LOG.error("Error in StyleRegisteredEvent listener", e);
-                }
-            });
-        }
+        STYLE_REGISTERED_LISTENERS.post(event);
+    }
+
+    public static void post(StylesRegisteredEvent event) {
+        STYLES_REGISTERED_LISTENERS.post(event);
+    }
+
+    /**
+     * Deliver queued events of subscriptions drained on the server tick. Called by the loaders
+     * at the end of every server tick.
+     */
+    public static void drainTickQueues() {
+        AsyncEventQueue.drainTickQueues();
+    }
+
+    // Visible for testing
+    public static void resetForTest() {
+        TREE_DETECTED_LISTENERS.clear();
+        BLOCKS_DETECTED_LISTENERS.clear();
+        STRUCTURE_DETECTED_LISTENERS.clear();
+        STYLE_REGISTERED_LISTENERS.clear();
+        STYLES_REGISTERED_LISTENERS.clear();
     }
-}
\ No newline at end of file
+}
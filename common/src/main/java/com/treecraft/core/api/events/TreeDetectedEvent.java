@@ -2,23 +2,34 @@ package com.treecraft.core.api.events;
 
 import com.treecraft.core.api.TreeComponentType;
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
 
+import javax.annotation.Nullable;
+
 public class TreeDetectedEvent {
     private final BlockState block;
     private final BlockPos pos;
+    private final Level level;
     private final TreeComponentType detectedType;
     private final float confidence;
 
     public TreeDetectedEvent(BlockState block, BlockPos pos, TreeComponentType detectedType, float confidence) {
+        this(block, pos, null, detectedType, confidence);
+    }
+
+    public TreeDetectedEvent(BlockState block, BlockPos pos, @Nullable Level level, TreeComponentType detectedType, float confidence) {
         this.block = block;
-        this.pos = pos;
+        this.pos = pos.immutable();
+        this.level = level;
         this.detectedType = detectedType;
         this.confidence = confidence;
     }
 
     public BlockState getBlock() { return block; }
     public BlockPos getPos() { return pos; }
+    @Nullable
+    public Level getLevel() { return level; }
     public TreeComponentType getDetectedType() { return detectedType; }
     public float getConfidence() { return confidence; }
-}
\ No newline at end of file
+}
@@ -1,6 +1,9 @@
 package com.treecraft.core.compatibility;
 
 import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.detection.TreeTemplate;
+
+import java.util.Collections;
 import java.util.List;
 
 public interface ModAdapter {
@@ -23,4 +26,11 @@ public interface ModAdapter {
      * Create styles from this mod's blocks
      */
     List<BlockStyle> createStyles();
+
+    /**
+     * Create shape templates for this mod's generated trees
+     */
+    default List<TreeTemplate> createTemplates() {
+        return Collections.emptyList();
+    }
 }
\ No newline at end of file
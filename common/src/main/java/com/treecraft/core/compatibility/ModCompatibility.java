@@ -2,6 +2,9 @@ package com.treecraft.core.compatibility;
 
 import com.treecraft.core.Constants;
 import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.config.CoreConfig;
+import com.treecraft.core.detection.TemplateMatcher;
+import com.treecraft.core.detection.TreeTemplate;
 import com.treecraft.core.registry.StyleRegistry;
 
 import java.util.ArrayList;
@@ -20,6 +23,7 @@ public class ModCompatibility {
     public static void loadCompatibility() {
         Constants.LOG.info("Loading mod compatibility...");
 
+        List<BlockStyle> allStyles = new ArrayList<>();
         for (ModAdapter adapter : ADAPTERS) {
             try {
                 if (adapter.isModLoaded()) {
@@ -28,15 +32,38 @@ public class ModCompatibility {
 
                     List<BlockStyle> styles = adapter.createStyles();
                     if (styles != null) {
-                        for (BlockStyle style : styles) {
-                            StyleRegistry.register(style);
-                        }
+                        allStyles.addAll(validStyles(adapter, styles));
+                    }
+
+                    List<TreeTemplate> templates = adapter.createTemplates();
+                    if (templates != null && CoreConfig.enableTemplateMatching) {
+                        templates.forEach(TemplateMatcher::register);
                     }
                 }
             } catch (Exception e) {
                 Constants.LOG.error("Failed to load adapter for " + adapter.getModId(), e);
             }
         }
+
+        StyleRegistry.registerAll(allStyles);
+    }
+
+    /**
+     * Drop the styles of an adapter that the registry would reject, so one bad style does not
+     * fail the registration of every adapter
+     */
+    private static List<BlockStyle> validStyles(ModAdapter adapter, List<BlockStyle> styles) {
+        List<BlockStyle> valid = new ArrayList<>(styles.size());
+        for (BlockStyle style : styles) {
+            if (style == null) {
+                Constants.LOG.warn("Adapter for {} created a null style, skipping it", adapter.getModId());
+            } else if (style.getId() == null) {
+                Constants.LOG.warn("Adapter for {} created a style without an ID, skipping it", adapter.getModId());
+            } else {
+                valid.add(style);
+            }
+        }
+        return valid;
     }
 
     public static void registerAdapter(ModAdapter adapter) {
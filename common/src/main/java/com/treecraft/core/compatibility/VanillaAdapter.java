@@ -2,6 +2,7 @@ package com.treecraft.core.compatibility;
 
 import com.treecraft.core.api.BlockStyle;
 import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.detection.TreeTemplate;
 import com.treecraft.core.registry.TreeBlockRegistry;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.block.Block;
@@ -117,6 +118,39 @@ public class VanillaAdapter implements ModAdapter {
         return styles;
     }
 
+    @Override
+    public List<TreeTemplate> createTemplates() {
+        List<TreeTemplate> templates = new ArrayList<>();
+
+        // Straight trunk with blob foliage: leaf layers from two below the top log to one above it
+        templates.add(new TreeTemplate.Builder()
+            .id(new ResourceLocation("treecraft", "vanilla_oak"))
+            .blocks(Blocks.OAK_LOG, Blocks.OAK_LEAVES)
+            .trunkHeight(4, 6)
+            .canopy(2, 3, 1)
+            .minLeaves(20)
+            .build());
+
+        templates.add(new TreeTemplate.Builder()
+            .id(new ResourceLocation("treecraft", "vanilla_birch"))
+            .blocks(Blocks.BIRCH_LOG, Blocks.BIRCH_LEAVES)
+            .trunkHeight(5, 7)
+            .canopy(2, 3, 1)
+            .minLeaves(20)
+            .build());
+
+        // Spruce foliage reaches down most of the trunk and up to two layers above the attachment
+        templates.add(new TreeTemplate.Builder()
+            .id(new ResourceLocation("treecraft", "vanilla_spruce"))
+            .blocks(Blocks.SPRUCE_LOG, Blocks.SPRUCE_LEAVES)
+            .trunkHeight(5, 8)
+            .canopy(3, 7, 3)
+            .minLeaves(15)
+            .build());
+
+        return templates;
+    }
+
     private BlockStyle createStyle(String name, String displayName, Block log, Block leaves) {
         return new BlockStyle.Builder()
             .id(new ResourceLocation("treecraft", name))
@@ -60,12 +60,23 @@ public class ConfigLoader {
         CoreConfig.enableAutoDetection = dto.enableAutoDetection;
         CoreConfig.minConfidenceThreshold = dto.minConfidenceThreshold;
         CoreConfig.maxTreeSize = dto.maxTreeSize;
+        CoreConfig.enableTemplateMatching = dto.enableTemplateMatching;
         CoreConfig.enableConquestSupport = dto.enableConquestSupport;
         CoreConfig.enableDynamicTreesSupport = dto.enableDynamicTreesSupport;
         CoreConfig.enableVanillaDetection = dto.enableVanillaDetection;
         CoreConfig.detectionCacheSize = dto.detectionCacheSize;
         CoreConfig.asyncDetection = dto.asyncDetection;
         CoreConfig.maxDetectionThreads = dto.maxDetectionThreads;
+        CoreConfig.speculativeDetection = dto.speculativeDetection;
+        CoreConfig.indexDetectedTrees = dto.indexDetectedTrees;
+        CoreConfig.backgroundIndexing = dto.backgroundIndexing;
+        CoreConfig.indexChunksPerSecond = dto.indexChunksPerSecond;
+        CoreConfig.indexTickBudgetMs = dto.indexTickBudgetMs;
+        CoreConfig.indexPauseMspt = dto.indexPauseMspt;
+        CoreConfig.styleLoaderThreads = dto.styleLoaderThreads;
+        CoreConfig.watchStyleFiles = dto.watchStyleFiles;
+        CoreConfig.useStyleBundle = dto.useStyleBundle;
+        CoreConfig.syncClassificationTable = dto.syncClassificationTable;
         CoreConfig.debugMode = dto.debugMode;
         CoreConfig.logDetections = dto.logDetections;
     }
@@ -74,6 +85,7 @@ public class ConfigLoader {
         boolean enableAutoDetection = true;
         float minConfidenceThreshold = 0.5f;
         int maxTreeSize = 10000;
+        boolean enableTemplateMatching = true;
 
         boolean enableConquestSupport = true;
         boolean enableDynamicTreesSupport = true;
@@ -82,6 +94,16 @@ public class ConfigLoader {
         int detectionCacheSize = 1000;
         boolean asyncDetection = true;
         int maxDetectionThreads = 2;
+        boolean speculativeDetection = true;
+        boolean indexDetectedTrees = true;
+        boolean backgroundIndexing = false;
+        int indexChunksPerSecond = 20;
+        int indexTickBudgetMs = 2;
+        int indexPauseMspt = 40;
+        int styleLoaderThreads = 4;
+        boolean watchStyleFiles = false;
+        boolean useStyleBundle = true;
+        boolean syncClassificationTable = true;
 
         boolean debugMode = false;
         boolean logDetections = false;
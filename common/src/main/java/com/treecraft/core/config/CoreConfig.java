@@ -5,6 +5,7 @@ public class CoreConfig {
     public static boolean enableAutoDetection = true;
     public static float minConfidenceThreshold = 0.5f;
     public static int maxTreeSize = 10000;
+    public static boolean enableTemplateMatching = true;
 
     // Compatibility
     public static boolean enableConquestSupport = true;
@@ -15,6 +16,16 @@ public class CoreConfig {
     public static int detectionCacheSize = 1000;
     public static boolean asyncDetection = true;
     public static int maxDetectionThreads = 2;
+    public static boolean speculativeDetection = true;
+    public static boolean indexDetectedTrees = true;
+    public static boolean backgroundIndexing = false;
+    public static int indexChunksPerSecond = 20;
+    public static int indexTickBudgetMs = 2;
+    public static int indexPauseMspt = 40;
+    public static int styleLoaderThreads = 4;
+    public static boolean watchStyleFiles = false;
+    public static boolean useStyleBundle = true;
+    public static boolean syncClassificationTable = true;
 
     // Debug
     public static boolean debugMode = false;
@@ -0,0 +1,211 @@
+package com.treecraft.core.detection;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.config.CoreConfig;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs tree detection on low-priority worker threads.
+ * <p>
+ * Workers never read the level. The sections around the start position are copied into a
+ * {@link LevelSnapshot} on the server thread and the workers scan the copy; a tree that reaches
+ * beyond the copy is detected again on the server thread. Events and indexing of a detection
+ * happen on the server thread once its result is used.
+ * <p>
+ * Speculative detections are started when a player begins mining a tree block and kept for a
+ * short time, so {@link TreeBlockDetector#detectTree} can return the finished structure on the
+ * break tick instead of flood filling there. A speculation is dropped when a block in its
+ * snapshot changes component type while the scan runs, or, once it has finished, when a block in
+ * or next to the found tree does.
+ */
+public class AsyncTreeDetector {
+    private static final Logger LOGGER = LoggerFactory.getLogger("AsyncTreeDetector");
+    private static final AsyncTreeDetector INSTANCE = new AsyncTreeDetector();
+
+    // Enough for the trunk base below and a tall canopy above the mined block
+    private static final int SNAPSHOT_CHUNK_RADIUS = 1;
+    private static final int SNAPSHOT_SECTIONS_BELOW = 2;
+    private static final int SNAPSHOT_SECTIONS_ABOVE = 3;
+
+    private final ExecutorService executor;
+    private final Cache<BlockPos, Speculation> speculations = CacheBuilder.newBuilder()
+        .maximumSize(256)
+        .expireAfterWrite(10, TimeUnit.SECONDS)
+        .build();
+
+    private AsyncTreeDetector() {
+        executor = Executors.newFixedThreadPool(
+            Math.max(1, CoreConfig.maxDetectionThreads),
+            new ThreadFactoryBuilder()
+                .setNameFormat("TreeCraft-Detection-%d")
+                .setDaemon(true)
+                .setPriority(Thread.MIN_PRIORITY)
+                .build()
+        );
+    }
+
+    public static AsyncTreeDetector getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Detect a tree on the workers. Must be called on the server thread; the future completes
+     * on the server thread after the detection has been published.
+     */
+    public CompletableFuture<TreeStructure> detectTreeAsync(BlockPos pos, ServerLevel level) {
+        BlockPos start = pos.immutable();
+        return scanAsync(start, capture(start, level)).thenApplyAsync(detection -> {
+            if (detection == null) {
+                return TreeStructureDetector.detectTree(start, level);
+            }
+            detection.publish(level);
+            return detection.tree;
+        }, level.getServer());
+    }
+
+    /**
+     * Run other tree analysis on the detection workers
+     */
+    <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    private static LevelSnapshot capture(BlockPos start, ServerLevel level) {
+        return LevelSnapshot.capture(level, start, SNAPSHOT_CHUNK_RADIUS, SNAPSHOT_SECTIONS_BELOW, SNAPSHOT_SECTIONS_ABOVE);
+    }
+
+    /**
+     * Scan a snapshot on the workers
+     *
+     * @return a future of the unpublished detection, or of null if the tree reached beyond the snapshot
+     */
+    private CompletableFuture<TreeStructureDetector.Detection> scanAsync(BlockPos start, LevelSnapshot snapshot) {
+        return CompletableFuture.supplyAsync(() -> {
+            // Listeners may subscribe before the result is published, so always record the blocks
+            TreeStructureDetector.Detection detection = TreeStructureDetector.scan(start, snapshot, true);
+            return snapshot.reachedOutside() ? null : detection;
+        }, executor);
+    }
+
+    /**
+     * Start a background detection of the tree at a position if the block there is part of a tree.
+     * Called on the server thread when a player starts mining a block.
+     */
+    public void speculate(BlockPos pos, ServerLevel level) {
+        if (!CoreConfig.speculativeDetection || !CoreConfig.asyncDetection) return;
+
+        BlockPos key = pos.immutable();
+        Speculation existing = speculations.getIfPresent(key);
+        if (existing != null && existing.level == level && !existing.stale) return;
+
+        TreeComponentType type = TreeBlockDetector.getInstance().detectBlockType(level.getBlockState(key));
+        if (type == TreeComponentType.UNKNOWN) return;
+
+        LevelSnapshot snapshot = capture(key, level);
+        CompletableFuture<TreeStructureDetector.Detection> future = scanAsync(key, snapshot);
+        future.exceptionally(e -> {
+            LOGGER.error("Speculative detection failed at {}", key, e);
+            return null;
+        });
+        speculations.put(key, new Speculation(level, snapshot.getBounds(), future));
+    }
+
+    /**
+     * Take the finished speculative result for a position and publish it, if there is one that
+     * is still valid. Pending detections are left running and not waited for.
+     */
+    @Nullable
+    public TreeStructure takeSpeculative(BlockPos pos, Level level) {
+        Speculation speculation = speculations.getIfPresent(pos);
+        if (speculation == null || speculation.level != level) {
+            return null;
+        }
+        if (!speculation.stale && !speculation.future.isDone()) {
+            return null;
+        }
+
+        speculations.invalidate(pos);
+        if (speculation.stale || speculation.future.isCompletedExceptionally()) {
+            return null;
+        }
+        TreeStructureDetector.Detection detection = speculation.future.join();
+        if (detection == null) {
+            return null;
+        }
+        detection.publish(level);
+        return detection.tree;
+    }
+
+    /**
+     * Drop speculations a block change may have made wrong. Changes that keep the component type
+     * and the change at the speculated position itself, usually the mined block breaking, are
+     * ignored. Until its scan finishes a speculation is dropped for any change in its snapshot;
+     * afterwards only for changes in or next to the detected tree.
+     * Called on the server thread for every block change in a loaded chunk.
+     */
+    public void onBlockChanged(Level level, BlockPos pos, BlockState oldState, BlockState newState) {
+        if (speculations.size() == 0) return;
+
+        Boolean typeChanged = null;
+        for (Map.Entry<BlockPos, Speculation> entry : speculations.asMap().entrySet()) {
+            Speculation speculation = entry.getValue();
+            if (speculation.level != level || speculation.stale || !speculation.bounds.isInside(pos)) continue;
+            if (entry.getKey().equals(pos)) continue;
+
+            if (typeChanged == null) {
+                TreeBlockDetector detector = TreeBlockDetector.getInstance();
+                typeChanged = detector.detectBlockType(oldState) != detector.detectBlockType(newState);
+            }
+            if (!typeChanged) return;
+            if (speculation.future.isDone() && !touchesResult(speculation, pos)) continue;
+            speculation.stale = true;
+        }
+    }
+
+    /**
+     * Check whether a position is part of, or next to, the tree a finished speculation found
+     */
+    private static boolean touchesResult(Speculation speculation, BlockPos pos) {
+        if (speculation.future.isCompletedExceptionally()) return false;
+        TreeStructureDetector.Detection detection = speculation.future.join();
+        if (detection == null) return false;
+
+        TreeStructure tree = detection.tree;
+        if (tree.containsPosition(pos)) return true;
+        for (Direction direction : Direction.values()) {
+            if (tree.containsPosition(pos.relative(direction))) return true;
+        }
+        return false;
+    }
+
+    private static final class Speculation {
+        final Level level;
+        final BoundingBox bounds;
+        final CompletableFuture<TreeStructureDetector.Detection> future;
+        volatile boolean stale;
+
+        Speculation(Level level, BoundingBox bounds, CompletableFuture<TreeStructureDetector.Detection> future) {
+            this.level = level;
+            this.bounds = bounds;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.config.CoreConfig;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Optional background indexer that scans newly loaded chunks for trees and adds them to the
+ * {@link TreeSpatialIndex}, so the first interaction with a tree near players hits a warm index.
+ * <p>
+ * Chunks are queued on load and scanned on the server thread at the end of each tick, limited
+ * by a chunks-per-second rate, a per-tick time budget, and paused while MSPT is high. A chunk
+ * that runs out of budget is resumed where it stopped on the next tick. Detection only reads
+ * loaded chunks; trees reaching into unloaded ones are skipped.
+ */
+public class ChunkPreIndexer {
+    private static final Logger LOGGER = LoggerFactory.getLogger("ChunkPreIndexer");
+    private static final Map<ServerLevel, LongLinkedOpenHashSet> QUEUES = new WeakHashMap<>();
+    private static final Map<ServerLevel, ChunkScan> ACTIVE = new WeakHashMap<>();
+
+    private static double tokens = 0;
+    private static long lastRefill = 0;
+
+    public static synchronized void onChunkLoad(ServerLevel level, LevelChunk chunk) {
+        if (!CoreConfig.backgroundIndexing) return;
+        QUEUES.computeIfAbsent(level, k -> new LongLinkedOpenHashSet()).add(chunk.getPos().toLong());
+    }
+
+    public static synchronized void onChunkUnload(ServerLevel level, LevelChunk chunk) {
+        long chunkKey = chunk.getPos().toLong();
+        LongLinkedOpenHashSet queue = QUEUES.get(level);
+        if (queue != null) {
+            queue.remove(chunkKey);
+        }
+        ChunkScan scan = ACTIVE.get(level);
+        if (scan != null && scan.chunkKey == chunkKey) {
+            ACTIVE.remove(level);
+        }
+    }
+
+    /**
+     * Get number of chunks waiting to be scanned, including partly scanned ones
+     */
+    public static synchronized int getQueuedChunks() {
+        int total = ACTIVE.size();
+        for (LongLinkedOpenHashSet queue : QUEUES.values()) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    public static synchronized void tick(MinecraftServer server) {
+        if (!CoreConfig.backgroundIndexing || (QUEUES.isEmpty() && ACTIVE.isEmpty())) return;
+
+        long now = System.nanoTime();
+        refillTokens(now);
+
+        if (server.getAverageTickTime() > CoreConfig.indexPauseMspt) {
+            return;
+        }
+
+        long deadline = now + CoreConfig.indexTickBudgetMs * 1_000_000L;
+        BooleanSupplier outOfTime = () -> System.nanoTime() >= deadline;
+
+        for (ServerLevel level : server.getAllLevels()) {
+            LongLinkedOpenHashSet queue = QUEUES.get(level);
+            ChunkScan scan = ACTIVE.remove(level);
+            if (queue == null && scan == null) continue;
+
+            // Each chunk is attempted at most once per tick, deferred chunks go to the back
+            int attempts = queue != null ? queue.size() : 0;
+            while (!outOfTime.getAsBoolean()) {
+                if (scan == null) {
+                    if (attempts-- <= 0 || queue.isEmpty() || tokens < 1) break;
+
+                    long chunkKey = queue.removeFirstLong();
+                    int chunkX = ChunkPos.getX(chunkKey);
+                    int chunkZ = ChunkPos.getZ(chunkKey);
+                    if (level.getChunkSource().getChunkNow(chunkX, chunkZ) == null) continue;
+
+                    // Most trees crossing the chunk border stay within the neighbours
+                    if (!neighboursLoaded(level, chunkX, chunkZ)) {
+                        queue.add(chunkKey);
+                        continue;
+                    }
+
+                    tokens -= 1;
+                    scan = new ChunkScan(chunkKey);
+                }
+
+                LevelChunk chunk = level.getChunkSource().getChunkNow(ChunkPos.getX(scan.chunkKey), ChunkPos.getZ(scan.chunkKey));
+                try {
+                    if (chunk != null && !scanChunk(level, chunk, scan, outOfTime)) {
+                        break;
+                    }
+                } catch (Exception e) {
+                    LOGGER.error("Failed to pre-index chunk {}", new ChunkPos(scan.chunkKey), e);
+                }
+                scan = null;
+            }
+
+            if (scan != null) {
+                ACTIVE.put(level, scan);
+            }
+        }
+    }
+
+    private static void refillTokens(long now) {
+        int rate = Math.max(1, CoreConfig.indexChunksPerSecond);
+        if (lastRefill != 0) {
+            tokens = Math.min(rate, tokens + (now - lastRefill) / 1_000_000_000.0 * rate);
+        }
+        lastRefill = now;
+    }
+
+    private static boolean neighboursLoaded(ServerLevel level, int chunkX, int chunkZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (level.getChunkSource().getChunkNow(chunkX + dx, chunkZ + dz) == null) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the chunk is finished, false if it ran out of time
+     */
+    private static boolean scanChunk(ServerLevel level, LevelChunk chunk, ChunkScan scan, BooleanSupplier outOfTime) {
+        TreeSpatialIndex index = TreeSpatialIndex.forLevel(level);
+        int minX = chunk.getPos().getMinBlockX();
+        int minZ = chunk.getPos().getMinBlockZ();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        return scan.run(chunk.getSections(), ChunkPreIndexer::isTrunk, outOfTime, (sectionIndex, x, y, z) -> {
+            pos.set(minX + x, SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(sectionIndex)) + y, minZ + z);
+            if (index.hasTreeAt(pos)) return;
+
+            TreeStructure tree = TreeStructureDetector.detectLoadedTree(pos.immutable(), level);
+            // Detection already indexed it unless indexing of detected trees is off
+            if (tree != null && tree.isReasonableSize() && !CoreConfig.indexDetectedTrees) {
+                index.put(tree);
+            }
+        });
+    }
+
+    private static boolean isTrunk(BlockState state) {
+        return TreeBlockDetector.getInstance().detectBlockType(state) == TreeComponentType.TRUNK;
+    }
+
+    /**
+     * Receives the bottom block of every trunk column found by a {@link ChunkScan}
+     */
+    @FunctionalInterface
+    interface TrunkBaseVisitor {
+        void visit(int sectionIndex, int x, int y, int z);
+    }
+
+    /**
+     * Resumable walk over the sections of one chunk for the bottom blocks of trunk columns.
+     * Time is checked after every visited base and at the start of every layer.
+     */
+    static final class ChunkScan {
+        final long chunkKey;
+        private int section;
+        // y << 8 | z << 4 | x within the current section
+        private int cell;
+
+        ChunkScan(long chunkKey) {
+            this.chunkKey = chunkKey;
+        }
+
+        /**
+         * Continue the walk until the chunk is finished or out of time
+         *
+         * @return true if the chunk is finished
+         */
+        boolean run(LevelChunkSection[] sections, Predicate<BlockState> isTrunk, BooleanSupplier outOfTime, TrunkBaseVisitor visitor) {
+            for (; section < sections.length; section++, cell = 0) {
+                LevelChunkSection current = sections[section];
+                // Palette check skips sections that cannot contain a trunk without touching blocks
+                if (current.hasOnlyAir() || !current.maybeHas(isTrunk)) continue;
+
+                LevelChunkSection below = section > 0 ? sections[section - 1] : null;
+                while (cell < 4096) {
+                    if ((cell & 0xFF) == 0 && outOfTime.getAsBoolean()) {
+                        return false;
+                    }
+
+                    int x = cell & 15;
+                    int z = (cell >> 4) & 15;
+                    int y = cell >> 8;
+                    cell++;
+
+                    if (!isTrunk.test(current.getBlockState(x, y, z))) continue;
+                    // Only start from the bottom of a trunk column
+                    BlockState under = y > 0 ? current.getBlockState(x, y - 1, z)
+                        : below != null ? below.getBlockState(x, 15, z) : null;
+                    if (under != null && isTrunk.test(under)) continue;
+
+                    visitor.visit(section, x, y, z);
+                    if (outOfTime.getAsBoolean()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.treecraft.core.detection;
+
+import com.google.common.hash.Hashing;
+import com.treecraft.core.api.TreeComponentType;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Frozen {@link TreeComponentType} of every block state, indexed by global state id.
+ * <p>
+ * The server builds its table once from the level-independent classification of
+ * {@link TreeBlockDetector} and sends it to clients, which then look blocks up without running
+ * any heuristics. The wire form is run-length encoded, and the table hash lets clients reuse a
+ * cached copy instead of downloading it again.
+ */
+public final class ClassificationTable {
+    private static final TreeComponentType[] TYPES = TreeComponentType.values();
+
+    private static volatile ClassificationTable server;
+    private static volatile ClassificationTable client;
+
+    private final byte[] types;
+    private final byte[] encoded;
+    private final long hash;
+
+    private ClassificationTable(byte[] types, byte[] encoded) {
+        this.types = types;
+        this.encoded = encoded;
+        this.hash = Hashing.murmur3_128().hashBytes(encoded).asLong();
+    }
+
+    /**
+     * Classify every registered block state
+     */
+    public static ClassificationTable build() {
+        TreeBlockDetector detector = TreeBlockDetector.getInstance();
+        byte[] types = new byte[Block.BLOCK_STATE_REGISTRY.size()];
+        for (int id = 0; id < types.length; id++) {
+            BlockState state = Block.stateById(id);
+            types[id] = (byte) detector.classify(state, null, null).type.ordinal();
+        }
+        return of(types);
+    }
+
+    static ClassificationTable of(byte[] types) {
+        return new ClassificationTable(types, encode(types));
+    }
+
+    /**
+     * Get the table of this server, building it on first use
+     */
+    public static ClassificationTable server() {
+        ClassificationTable table = server;
+        if (table == null) {
+            synchronized (ClassificationTable.class) {
+                table = server;
+                if (table == null) {
+                    server = table = build();
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Get the table of this server without building it
+     *
+     * @return the table, or null if it has not been built
+     */
+    @Nullable
+    public static ClassificationTable serverIfBuilt() {
+        return server;
+    }
+
+    /**
+     * Replace the server table with one built from the current registries
+     */
+    public static synchronized void rebuildServer() {
+        server = build();
+    }
+
+    /**
+     * Drop the server table, so a later server builds its own from its registries
+     */
+    public static void resetServer() {
+        server = null;
+    }
+
+    /**
+     * Get the table received from the server the client is connected to
+     *
+     * @return the table, or null if none was received
+     */
+    @Nullable
+    public static ClassificationTable client() {
+        return client;
+    }
+
+    /**
+     * Install the table received from the server, or clear it with null
+     */
+    public static void setClient(@Nullable ClassificationTable table) {
+        client = table;
+    }
+
+    /**
+     * Look up a block state on the client, falling back to local classification when no
+     * table has been received
+     */
+    public static TreeComponentType lookupClient(BlockState state) {
+        ClassificationTable table = client;
+        return table != null ? table.get(state) : TreeBlockDetector.getInstance().detectBlockType(state);
+    }
+
+    /**
+     * Get the classification of a block state
+     */
+    public TreeComponentType get(BlockState state) {
+        int id = Block.getId(state);
+        return id >= 0 && id < types.length ? TYPES[types[id]] : TreeComponentType.UNKNOWN;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Get the hash of the encoded table
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the run-length encoded form
+     */
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    /**
+     * Decode a table from its run-length encoded form
+     *
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    public static ClassificationTable decode(byte[] encoded) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.wrappedBuffer(encoded));
+        try {
+            int size = buf.readVarInt();
+            if (size < 0 || size > Block.BLOCK_STATE_REGISTRY.size()) {
+                throw new IllegalArgumentException("Classification table size " + size + " does not match the block state registry");
+            }
+            byte[] types = new byte[size];
+            int id = 0;
+            while (id < types.length) {
+                int type = buf.readByte();
+                int run = buf.readVarInt();
+                if (type < 0 || type >= TYPES.length || run <= 0 || run > types.length - id) {
+                    throw new IllegalArgumentException("Invalid classification run at state " + id);
+                }
+                Arrays.fill(types, id, id + run, (byte) type);
+                id += run;
+            }
+            return new ClassificationTable(types, encoded);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated classification table", e);
+        }
+    }
+
+    private static byte[] encode(byte[] types) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        buf.writeVarInt(types.length);
+        int id = 0;
+        while (id < types.length) {
+            int start = id;
+            while (id < types.length && types[id] == types[start]) {
+                id++;
+            }
+            buf.writeByte(types[start]);
+            buf.writeVarInt(id - start);
+        }
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    // Visible for testing
+    public static void resetForTest() {
+        server = null;
+        client = null;
+    }
+}
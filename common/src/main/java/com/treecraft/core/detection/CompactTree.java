@@ -0,0 +1,250 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compact form of a tree: its origin, a reference to a shared {@link TreeShape} and a small
+ * delta of cells that differ from that shape. Used for long-lived storage of many trees.
+ * <p>
+ * Trees are compacted against canonical shapes: shapes with the same {@link TreeShape#coarseKey}
+ * (the same trunk and branches, with leaves of the same blocks) are compared, and the closest
+ * one within the delta limit is shared. Vanilla trees that only differ in their random leaf
+ * corners therefore share one shape wherever they grow.
+ */
+public final class CompactTree {
+    private static final int MIN_DELTA = 16;
+    private static final int MAX_CANONICAL_PER_KEY = 4;
+    private static final byte REMOVED = -1;
+    private static final TreeComponentType[] TYPES = TreeComponentType.values();
+
+    // Canonical shapes by coarse key; shapes are only kept alive by the trees using them
+    private static final Map<Long, List<WeakReference<TreeShape>>> CANONICAL = new ConcurrentHashMap<>();
+    private static final int SWEEP_INTERVAL = 1024;
+    private static final AtomicInteger REGISTRATIONS = new AtomicInteger();
+
+    private final BlockPos origin;
+    private final TreeShape shape;
+    // Cells differing from the shape, sorted, with REMOVED for cells the tree does not have
+    private final long[] deltaCells;
+    private final byte[] deltaTypes;
+    private final BlockState[] deltaStates;
+    private final long detectedTime;
+
+    private CompactTree(BlockPos origin, TreeShape shape, Delta delta, long detectedTime) {
+        this.origin = origin;
+        this.shape = shape;
+        this.deltaCells = delta.cells;
+        this.deltaTypes = delta.types;
+        this.deltaStates = delta.states;
+        this.detectedTime = detectedTime;
+    }
+
+    /**
+     * Compact a tree against the closest canonical shape, registering its own shape as
+     * canonical if none is close enough
+     */
+    public static CompactTree of(TreeStructure tree) {
+        TreeShape own = TreeShape.build(tree);
+        long key = own.coarseKey();
+        List<WeakReference<TreeShape>> candidates = CANONICAL.computeIfAbsent(key, k -> new ArrayList<>(1));
+
+        TreeShape shape;
+        synchronized (candidates) {
+            TreeShape best = null;
+            Delta bestDelta = null;
+            for (Iterator<WeakReference<TreeShape>> it = candidates.iterator(); it.hasNext(); ) {
+                TreeShape candidate = it.next().get();
+                if (candidate == null) {
+                    it.remove();
+                    continue;
+                }
+
+                int limit = bestDelta != null ? Math.min(bestDelta.size() - 1, maxDelta(candidate)) : maxDelta(candidate);
+                Delta delta = Delta.between(candidate, own, limit);
+                if (delta != null) {
+                    best = candidate;
+                    bestDelta = delta;
+                    if (delta.size() == 0) break;
+                }
+            }
+            if (best != null) {
+                return new CompactTree(tree.getBasePos(), best, bestDelta, tree.getDetectedTime());
+            }
+
+            shape = TreeShape.intern(own);
+            if (candidates.size() < MAX_CANONICAL_PER_KEY) {
+                candidates.add(new WeakReference<>(shape));
+            }
+        }
+
+        if (REGISTRATIONS.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sweep();
+        }
+        return new CompactTree(tree.getBasePos(), shape, Delta.EMPTY, tree.getDetectedTime());
+    }
+
+    /**
+     * Drop the keys of canonical shapes that have all been collected
+     */
+    private static void sweep() {
+        CANONICAL.values().removeIf(candidates -> {
+            synchronized (candidates) {
+                candidates.removeIf(ref -> ref.get() == null);
+                return candidates.isEmpty();
+            }
+        });
+    }
+
+    /**
+     * Compact a tree, keeping the shape of a previous version of the same tree when only a few
+     * cells changed (e.g. decayed leaves or a chopped branch)
+     */
+    public static CompactTree of(TreeStructure tree, @Nullable CompactTree previous) {
+        if (previous == null || !previous.origin.equals(tree.getBasePos())) {
+            return of(tree);
+        }
+
+        Delta delta = Delta.between(previous.shape, TreeShape.build(tree), maxDelta(previous.shape));
+        return delta != null ? new CompactTree(tree.getBasePos(), previous.shape, delta, tree.getDetectedTime()) : of(tree);
+    }
+
+    private static int maxDelta(TreeShape shape) {
+        return Math.max(MIN_DELTA, shape.size() / 10);
+    }
+
+    public BlockPos getOrigin() {
+        return origin;
+    }
+
+    public TreeShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Get number of cells differing from the shared shape
+     */
+    public int getDeltaSize() {
+        return deltaCells.length;
+    }
+
+    public boolean contains(BlockPos pos) {
+        long cell = TreeShape.pack(pos.getX() - origin.getX(), pos.getY() - origin.getY(), pos.getZ() - origin.getZ());
+        int index = Arrays.binarySearch(deltaCells, cell);
+        if (index >= 0) {
+            return deltaTypes[index] != REMOVED;
+        }
+        return shape.indexOf(cell) >= 0;
+    }
+
+    /**
+     * Expand back into a full tree structure
+     */
+    public TreeStructure toStructure() {
+        TreeStructure tree = new TreeStructure(origin, detectedTime);
+        int d = 0;
+        for (int i = 0; i < shape.size(); i++) {
+            long cell = shape.getCell(i);
+            while (d < deltaCells.length && deltaCells[d] < cell) {
+                addDelta(tree, d++);
+            }
+            if (d < deltaCells.length && deltaCells[d] == cell) {
+                addDelta(tree, d++);
+            } else {
+                tree.addComponent(toPos(cell), shape.getState(i), shape.getType(i));
+            }
+        }
+        while (d < deltaCells.length) {
+            addDelta(tree, d++);
+        }
+        return tree;
+    }
+
+    private void addDelta(TreeStructure tree, int index) {
+        if (deltaTypes[index] != REMOVED) {
+            tree.addComponent(toPos(deltaCells[index]), deltaStates[index], TYPES[deltaTypes[index]]);
+        }
+    }
+
+    private BlockPos toPos(long cell) {
+        return origin.offset(TreeShape.unpackX(cell), TreeShape.unpackY(cell), TreeShape.unpackZ(cell));
+    }
+
+    // Visible for testing
+    static void resetCanonicalForTest() {
+        CANONICAL.clear();
+    }
+
+    /**
+     * Sorted cells by which a tree differs from a shape
+     */
+    private static final class Delta {
+        static final Delta EMPTY = new Delta(new long[0], new byte[0], new BlockState[0]);
+
+        final long[] cells;
+        final byte[] types;
+        final BlockState[] states;
+
+        Delta(long[] cells, byte[] types, BlockState[] states) {
+            this.cells = cells;
+            this.types = types;
+            this.states = states;
+        }
+
+        int size() {
+            return cells.length;
+        }
+
+        /**
+         * Walk both sorted shapes in step
+         *
+         * @return the delta turning {@code base} into {@code target}, or null if it has more than {@code limit} cells
+         */
+        @Nullable
+        static Delta between(TreeShape base, TreeShape target, int limit) {
+            if (limit < 0) return null;
+
+            LongArrayList cells = new LongArrayList();
+            ByteArrayList types = new ByteArrayList();
+            ObjectArrayList<BlockState> states = new ObjectArrayList<>();
+            int i = 0;
+            int j = 0;
+            while (i < base.size() || j < target.size()) {
+                long baseCell = i < base.size() ? base.getCell(i) : Long.MAX_VALUE;
+                long targetCell = j < target.size() ? target.getCell(j) : Long.MAX_VALUE;
+
+                if (baseCell < targetCell) {
+                    cells.add(baseCell);
+                    types.add(REMOVED);
+                    states.add(null);
+                    i++;
+                } else {
+                    if (baseCell > targetCell || base.getType(i) != target.getType(j) || base.getState(i) != target.getState(j)) {
+                        cells.add(targetCell);
+                        types.add((byte) target.getType(j).ordinal());
+                        states.add(target.getState(j));
+                    }
+                    if (baseCell == targetCell) i++;
+                    j++;
+                }
+                if (cells.size() > limit) return null;
+            }
+
+            return cells.isEmpty() ? EMPTY : new Delta(cells.toLongArray(), types.toByteArray(), states.toArray(new BlockState[0]));
+        }
+    }
+}
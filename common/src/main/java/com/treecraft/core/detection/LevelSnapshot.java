@@ -0,0 +1,129 @@
+package com.treecraft.core.detection;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.material.FluidState;
+
+import javax.annotation.Nullable;
+
+/**
+ * Copy of the block states of the loaded sections around a position.
+ * <p>
+ * Captured on the server thread so detection can read it from worker threads without touching
+ * the level. Reads outside the copied sections return air and are remembered, so callers can
+ * discard results that needed more of the world than was copied. Block entities are not copied.
+ */
+final class LevelSnapshot implements BlockGetter {
+    private final Long2ObjectMap<PalettedContainer<BlockState>> sections = new Long2ObjectOpenHashMap<>();
+    private final BoundingBox bounds;
+    private final int minBuildHeight;
+    private final int height;
+    private boolean reachedOutside;
+
+    private LevelSnapshot(BoundingBox bounds, int minBuildHeight, int height) {
+        this.bounds = bounds;
+        this.minBuildHeight = minBuildHeight;
+        this.height = height;
+    }
+
+    /**
+     * Copy the sections within a chunk radius and a section range around a position.
+     * Chunks that are not loaded are left out. Must be called on the server thread.
+     */
+    static LevelSnapshot capture(ServerLevel level, BlockPos center, int chunkRadius, int sectionsBelow, int sectionsAbove) {
+        int centerX = SectionPos.blockToSectionCoord(center.getX());
+        int centerY = SectionPos.blockToSectionCoord(center.getY());
+        int centerZ = SectionPos.blockToSectionCoord(center.getZ());
+        int minSectionY = Math.max(level.getMinSection(), centerY - sectionsBelow);
+        int maxSectionY = Math.min(level.getMaxSection() - 1, centerY + sectionsAbove);
+
+        LevelSnapshot snapshot = new LevelSnapshot(new BoundingBox(
+            SectionPos.sectionToBlockCoord(centerX - chunkRadius),
+            SectionPos.sectionToBlockCoord(minSectionY),
+            SectionPos.sectionToBlockCoord(centerZ - chunkRadius),
+            SectionPos.sectionToBlockCoord(centerX + chunkRadius, 15),
+            SectionPos.sectionToBlockCoord(maxSectionY, 15),
+            SectionPos.sectionToBlockCoord(centerZ + chunkRadius, 15)
+        ), level.getMinBuildHeight(), level.getHeight());
+
+        for (int cx = centerX - chunkRadius; cx <= centerX + chunkRadius; cx++) {
+            for (int cz = centerZ - chunkRadius; cz <= centerZ + chunkRadius; cz++) {
+                LevelChunk chunk = level.getChunkSource().getChunkNow(cx, cz);
+                if (chunk == null) continue;
+
+                for (int sy = minSectionY; sy <= maxSectionY; sy++) {
+                    LevelChunkSection section = chunk.getSection(chunk.getSectionIndexFromSectionY(sy));
+                    // Air sections are recorded without a copy
+                    snapshot.sections.put(SectionPos.asLong(cx, sy, cz), section.hasOnlyAir() ? null : section.getStates().copy());
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the block area the snapshot was taken from
+     */
+    BoundingBox getBounds() {
+        return bounds;
+    }
+
+    /**
+     * Check if a read fell outside the copied sections
+     */
+    boolean reachedOutside() {
+        return reachedOutside;
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        if (isOutsideBuildHeight(pos)) {
+            return Blocks.AIR.defaultBlockState();
+        }
+
+        long key = SectionPos.asLong(
+            SectionPos.blockToSectionCoord(pos.getX()),
+            SectionPos.blockToSectionCoord(pos.getY()),
+            SectionPos.blockToSectionCoord(pos.getZ()));
+        PalettedContainer<BlockState> states = sections.get(key);
+        if (states == null) {
+            if (!sections.containsKey(key)) {
+                reachedOutside = true;
+            }
+            return Blocks.AIR.defaultBlockState();
+        }
+        return states.get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Nullable
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getMinBuildHeight() {
+        return minBuildHeight;
+    }
+}
@@ -0,0 +1,98 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fast path for tree detection: confirms the cells of a registered {@link TreeTemplate}
+ * instead of flood filling. Any deviation from the template is a mismatch and the caller
+ * falls back to the regular search.
+ */
+public class TemplateMatcher {
+    private static final Map<Block, List<TreeTemplate>> TEMPLATES = new ConcurrentHashMap<>();
+
+    public static void register(TreeTemplate template) {
+        TEMPLATES.computeIfAbsent(template.getLog(), k -> new CopyOnWriteArrayList<>()).add(template);
+    }
+
+    public static void clear() {
+        TEMPLATES.clear();
+    }
+
+    /**
+     * Try to match a tree standing on {@code basePos} against the registered templates
+     *
+     * @return the matched tree, or null if no template fits
+     */
+    @Nullable
+    public static TreeStructure match(BlockPos basePos, BlockGetter level) {
+        List<TreeTemplate> candidates = TEMPLATES.get(level.getBlockState(basePos).getBlock());
+        if (candidates == null) {
+            return null;
+        }
+
+        for (TreeTemplate template : candidates) {
+            TreeStructure tree = tryMatch(template, basePos, level);
+            if (tree != null) {
+                return tree;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static TreeStructure tryMatch(TreeTemplate template, BlockPos basePos, BlockGetter level) {
+        BlockPos.MutableBlockPos pos = basePos.mutable();
+
+        // Trunk: a single straight column of the template log
+        int height = 0;
+        while (level.getBlockState(pos).is(template.getLog())) {
+            if (++height > template.getMaxTrunkHeight()) return null;
+            for (Direction dir : Direction.Plane.HORIZONTAL) {
+                if (level.getBlockState(pos.relative(dir)).is(template.getLog())) return null;
+            }
+            pos.move(Direction.UP);
+        }
+        if (height < template.getMinTrunkHeight()) return null;
+
+        // Every vanilla canopy caps the trunk with a leaf block
+        if (!level.getBlockState(pos).is(template.getLeaves())) return null;
+
+        TreeStructure tree = new TreeStructure(basePos);
+        for (int i = 0; i < height; i++) {
+            BlockPos trunkPos = basePos.above(i);
+            tree.addComponent(trunkPos, level.getBlockState(trunkPos), TreeComponentType.TRUNK);
+        }
+
+        int topY = basePos.getY() + height - 1;
+        int radius = template.getCanopyRadius();
+        int leaves = 0;
+        for (int y = topY - template.getCanopyBelowTop() + 1; y <= topY + template.getCanopyAboveTop(); y++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    pos.set(basePos.getX() + dx, y, basePos.getZ() + dz);
+                    BlockState state = level.getBlockState(pos);
+                    if (state.is(template.getLeaves())) {
+                        tree.addComponent(pos.immutable(), state, TreeComponentType.LEAVES);
+                        leaves++;
+                    } else if (state.is(template.getLog()) && (dx != 0 || dz != 0 || y > topY)) {
+                        // Logs inside the canopy mean branches or a neighbouring tree
+                        return null;
+                    }
+                }
+            }
+        }
+
+        return leaves < template.getMinLeaves() ? null : tree;
+    }
+}
@@ -14,6 +14,7 @@ import com.treecraft.core.detection.heuristics.TagHeuristic;
 import com.treecraft.core.api.events.TreeDetectedEvent;
 import com.treecraft.core.api.events.TreeCraftEvents;
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
 import org.slf4j.Logger;
@@ -62,15 +63,28 @@ public class TreeBlockDetector implements ITreeBlockDetector {
     }
 
     public TreeComponentType detect(BlockState block, Level level, BlockPos pos) {
+        DetectionResult result = classify(block, level, pos);
+
+        if (level != null && pos != null && result.type != TreeComponentType.UNKNOWN && TreeCraftEvents.hasTreeDetectedListeners(result.type)) {
+            TreeCraftEvents.post(new TreeDetectedEvent(block, pos, level, result.type, result.confidence));
+        }
+
+        return result.type;
+    }
+
+    /**
+     * Classify a block without posting events
+     */
+    public DetectionResult classify(BlockState block, BlockGetter level, BlockPos pos) {
         // Check registry first (manual override)
         if (com.treecraft.core.registry.TreeBlockRegistry.isTreeBlock(block.getBlock())) {
-            return com.treecraft.core.registry.TreeBlockRegistry.getType(block.getBlock());
+            return new DetectionResult(com.treecraft.core.registry.TreeBlockRegistry.getType(block.getBlock()), 1.0f);
         }
 
         if (level == null) {
             DetectionResult cached = cache.getIfPresent(block);
             if (cached != null) {
-                return cached.type;
+                return cached;
             }
         }
 
@@ -78,19 +92,30 @@ public class TreeBlockDetector implements ITreeBlockDetector {
 
         if (level == null) {
             cache.put(block, result);
-        } else if (pos != null && result.type != TreeComponentType.UNKNOWN) {
-            TreeCraftEvents.post(new TreeDetectedEvent(block, pos, result.type, result.confidence));
         }
 
-        return result.type;
+        return result;
     }
 
+    /**
+     * Detect the tree at a position, using the speculative result started when a player began
+     * mining it if that is still valid.
+     * <p>
+     * Expected to be called from the break hook of the mined block, either before it is removed
+     * (Forge {@code BlockEvent.BreakEvent}, Fabric {@code PlayerBlockBreakEvents.BEFORE}) or in
+     * the same tick after ({@code PlayerBlockBreakEvents.AFTER}). Removing the mined block keeps
+     * the speculation; a later hook may find it dropped or expired and flood fill instead.
+     */
     @Override
     public TreeStructure detectTree(BlockPos pos, Level level) {
+        TreeStructure speculative = AsyncTreeDetector.getInstance().takeSpeculative(pos, level);
+        if (speculative != null) {
+            return speculative;
+        }
         return TreeStructureDetector.detectTree(pos, level);
     }
 
-    private DetectionResult detectUncached(BlockState block, Level level, BlockPos pos) {
+    private DetectionResult detectUncached(BlockState block, BlockGetter level, BlockPos pos) {
         Map<TreeComponentType, Float> scores = new EnumMap<>(TreeComponentType.class);
 
         for (IDetectionHeuristic heuristic : heuristics) {
@@ -0,0 +1,113 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.StyleSlot;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.registry.StyleMatch;
+import com.treecraft.core.registry.StyleRegistry;
+import it.unimi.dsi.fastutil.objects.Reference2DoubleMap;
+import it.unimi.dsi.fastutil.objects.Reference2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.world.level.block.Block;
+
+import javax.annotation.Nullable;
+
+/**
+ * Per-component histogram of the blocks in a tree, kept up to date by {@link TreeStructure}
+ * as components are added. Species matching walks the distinct blocks only.
+ */
+public class TreeFingerprint {
+    private static final TreeComponentType[] TYPES = TreeComponentType.values();
+    private static final double OTHER_SLOT_WEIGHT = 0.5;
+
+    @SuppressWarnings("unchecked")
+    private final Reference2IntMap<Block>[] histograms = new Reference2IntMap[TYPES.length];
+    private int total;
+
+    void add(TreeComponentType type, Block block) {
+        Reference2IntMap<Block> histogram = histograms[type.ordinal()];
+        if (histogram == null) {
+            histogram = new Reference2IntOpenHashMap<>(4);
+            histograms[type.ordinal()] = histogram;
+        }
+        histogram.mergeInt(block, 1, Integer::sum);
+        total++;
+    }
+
+    void remove(TreeComponentType type, Block block) {
+        Reference2IntMap<Block> histogram = histograms[type.ordinal()];
+        if (histogram == null) return;
+
+        int count = histogram.getInt(block);
+        if (count <= 1) {
+            histogram.removeInt(block);
+        } else {
+            histogram.put(block, count - 1);
+        }
+        if (count > 0) total--;
+    }
+
+    /**
+     * Get number of blocks of a component made of a block
+     */
+    public int getCount(TreeComponentType type, Block block) {
+        Reference2IntMap<Block> histogram = histograms[type.ordinal()];
+        return histogram != null ? histogram.getInt(block) : 0;
+    }
+
+    /**
+     * Get number of distinct blocks of a component
+     */
+    public int getDistinctBlocks(TreeComponentType type) {
+        Reference2IntMap<Block> histogram = histograms[type.ordinal()];
+        return histogram != null ? histogram.size() : 0;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Find the style explaining most of the tree's blocks. A block counts fully towards a style
+     * that lists it in the same component slot and half towards one listing it in another slot.
+     * The score is the explained fraction of all blocks.
+     *
+     * @return the best match, or null if no style contains any of the blocks
+     */
+    @Nullable
+    public StyleMatch match(StyleRegistry.Snapshot snapshot) {
+        if (total == 0) return null;
+
+        Reference2DoubleOpenHashMap<BlockStyle> explained = new Reference2DoubleOpenHashMap<>();
+        for (TreeComponentType type : TYPES) {
+            Reference2IntMap<Block> histogram = histograms[type.ordinal()];
+            if (histogram == null) continue;
+
+            for (Reference2IntMap.Entry<Block> entry : histogram.reference2IntEntrySet()) {
+                double best = 0;
+                BlockStyle previous = null;
+                for (StyleSlot slot : snapshot.getSlots(entry.getKey())) {
+                    // Slots of one style are adjacent; count each style once per block
+                    if (slot.getStyle() != previous) {
+                        if (previous != null) explained.addTo(previous, best * entry.getIntValue());
+                        previous = slot.getStyle();
+                        best = 0;
+                    }
+                    best = Math.max(best, slot.getComponent() == type ? 1.0 : OTHER_SLOT_WEIGHT);
+                }
+                if (previous != null) explained.addTo(previous, best * entry.getIntValue());
+            }
+        }
+
+        BlockStyle bestStyle = null;
+        double bestScore = 0;
+        for (Reference2DoubleMap.Entry<BlockStyle> entry : explained.reference2DoubleEntrySet()) {
+            if (entry.getDoubleValue() > bestScore) {
+                bestScore = entry.getDoubleValue();
+                bestStyle = entry.getKey();
+            }
+        }
+        return bestStyle == null ? null : new StyleMatch(bestStyle, bestScore / total);
+    }
+}
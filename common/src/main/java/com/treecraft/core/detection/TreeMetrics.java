@@ -0,0 +1,193 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * Shape summary of a tree, computed in a single pass over its blocks.
+ * <p>
+ * Obtain it through {@link TreeStructure#getMetrics()}, which caches the summary until the tree
+ * changes. Logs are the trunk and branch blocks.
+ */
+public class TreeMetrics {
+    private final int logCount;
+    private final int leafCount;
+    private final double trunkDiameter;
+    private final Vec3 centerOfMass;
+    private final int canopyVolume;
+    private final double leanAngle;
+
+    private TreeMetrics(int logCount, int leafCount, double trunkDiameter, Vec3 centerOfMass,
+                        int canopyVolume, double leanAngle) {
+        this.logCount = logCount;
+        this.leafCount = leafCount;
+        this.trunkDiameter = trunkDiameter;
+        this.centerOfMass = centerOfMass;
+        this.canopyVolume = canopyVolume;
+        this.leanAngle = leanAngle;
+    }
+
+    static TreeMetrics compute(TreeStructure tree) {
+        Accumulator acc = new Accumulator();
+        tree.forEachBlock((pos, state, type) -> acc.add(pos.getX(), pos.getY(), pos.getZ(), type));
+        return acc.finish();
+    }
+
+    /**
+     * Get the number of trunk and branch blocks
+     */
+    public int getLogCount() {
+        return logCount;
+    }
+
+    /**
+     * Get the number of leaf blocks
+     */
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * Get the mean horizontal extent of the trunk layers, in blocks
+     */
+    public double getTrunkDiameter() {
+        return trunkDiameter;
+    }
+
+    /**
+     * Get the mean block centre, treating every block as equal mass
+     */
+    public Vec3 getCenterOfMass() {
+        return centerOfMass;
+    }
+
+    /**
+     * Get the volume of the box enclosing the leaves, in blocks
+     */
+    public int getCanopyVolume() {
+        return canopyVolume;
+    }
+
+    /**
+     * Get the number of leaf blocks per log block, or the leaf count if the tree has no logs
+     */
+    public double getLeafToLogRatio() {
+        return (double) leafCount / Math.max(1, logCount);
+    }
+
+    /**
+     * Get the angle in degrees between the vertical and the line from the centre of the lowest
+     * trunk layer to the centre of the highest
+     */
+    public double getLeanAngle() {
+        return leanAngle;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "TreeMetrics{logs=%d, leaves=%d, trunkDiameter=%.2f, centerOfMass=%s, canopyVolume=%d, lean=%.1f}",
+            logCount, leafCount, trunkDiameter, centerOfMass, canopyVolume, leanAngle
+        );
+    }
+
+    private static final class Accumulator {
+        private final Int2ObjectMap<Layer> trunkLayers = new Int2ObjectOpenHashMap<>();
+        private int logCount;
+        private int leafCount;
+        private int total;
+        private long sumX;
+        private long sumY;
+        private long sumZ;
+        private int leafMinX = Integer.MAX_VALUE, leafMinY = Integer.MAX_VALUE, leafMinZ = Integer.MAX_VALUE;
+        private int leafMaxX = Integer.MIN_VALUE, leafMaxY = Integer.MIN_VALUE, leafMaxZ = Integer.MIN_VALUE;
+
+        void add(int x, int y, int z, TreeComponentType type) {
+            total++;
+            sumX += x;
+            sumY += y;
+            sumZ += z;
+
+            switch (type) {
+                case TRUNK -> {
+                    logCount++;
+                    trunkLayers.computeIfAbsent(y, k -> new Layer()).add(x, z);
+                }
+                case BRANCH -> logCount++;
+                case LEAVES -> {
+                    leafCount++;
+                    leafMinX = Math.min(leafMinX, x);
+                    leafMinY = Math.min(leafMinY, y);
+                    leafMinZ = Math.min(leafMinZ, z);
+                    leafMaxX = Math.max(leafMaxX, x);
+                    leafMaxY = Math.max(leafMaxY, y);
+                    leafMaxZ = Math.max(leafMaxZ, z);
+                }
+                default -> {
+                }
+            }
+        }
+
+        TreeMetrics finish() {
+            Vec3 center = total == 0 ? Vec3.ZERO : new Vec3(
+                (double) sumX / total + 0.5, (double) sumY / total + 0.5, (double) sumZ / total + 0.5);
+            int canopyVolume = leafCount == 0 ? 0
+                : (leafMaxX - leafMinX + 1) * (leafMaxY - leafMinY + 1) * (leafMaxZ - leafMinZ + 1);
+
+            double diameter = 0;
+            int lowY = Integer.MAX_VALUE;
+            int highY = Integer.MIN_VALUE;
+            for (Int2ObjectMap.Entry<Layer> entry : trunkLayers.int2ObjectEntrySet()) {
+                diameter += entry.getValue().extent();
+                lowY = Math.min(lowY, entry.getIntKey());
+                highY = Math.max(highY, entry.getIntKey());
+            }
+            if (!trunkLayers.isEmpty()) {
+                diameter /= trunkLayers.size();
+            }
+
+            double lean = 0;
+            if (highY > lowY) {
+                Layer low = trunkLayers.get(lowY);
+                Layer high = trunkLayers.get(highY);
+                double dx = high.centerX() - low.centerX();
+                double dz = high.centerZ() - low.centerZ();
+                lean = Math.toDegrees(Math.atan2(Math.sqrt(dx * dx + dz * dz), highY - lowY));
+            }
+
+            return new TreeMetrics(logCount, leafCount, diameter, center, canopyVolume, lean);
+        }
+    }
+
+    private static final class Layer {
+        private int count;
+        private long sumX;
+        private long sumZ;
+        private int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+
+        void add(int x, int z) {
+            count++;
+            sumX += x;
+            sumZ += z;
+            minX = Math.min(minX, x);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        int extent() {
+            return Math.max(maxX - minX, maxZ - minZ) + 1;
+        }
+
+        double centerX() {
+            return (double) sumX / count;
+        }
+
+        double centerZ() {
+            return (double) sumZ / count;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.treecraft.core.detection;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.treecraft.core.api.TreeComponentType;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, interned tree shape: the cells of a tree relative to its base position, with
+ * their component types and block states. Identical trees anywhere in the world share one
+ * instance, and {@link CompactTree} stores near-identical trees as a small delta against one.
+ * <p>
+ * Cells are stored as packed relative coordinates in ascending order (Y, then Z, then X).
+ */
+public final class TreeShape {
+    private static final Interner<TreeShape> INTERNER = Interners.newWeakInterner();
+    private static final TreeComponentType[] TYPES = TreeComponentType.values();
+
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    private static final int OFFSET = 1 << (BITS - 1);
+
+    private final long[] cells;
+    private final byte[] types;
+    private final BlockState[] states;
+    private final int hash;
+
+    private TreeShape(long[] cells, byte[] types, BlockState[] states) {
+        this.cells = cells;
+        this.types = types;
+        this.states = states;
+        this.hash = 31 * (31 * Arrays.hashCode(cells) + Arrays.hashCode(types)) + Arrays.hashCode(states);
+    }
+
+    /**
+     * Get the interned shape of a tree
+     */
+    public static TreeShape of(TreeStructure tree) {
+        return intern(build(tree));
+    }
+
+    static TreeShape intern(TreeShape shape) {
+        return INTERNER.intern(shape);
+    }
+
+    /**
+     * Build the shape of a tree without interning it
+     */
+    static TreeShape build(TreeStructure tree) {
+        BlockPos base = tree.getBasePos();
+        List<Cell> entries = new ArrayList<>(tree.getTotalBlocks());
+        for (TreeComponentType type : TYPES) {
+            for (BlockPos pos : tree.getComponentsOfType(type)) {
+                long cell = pack(pos.getX() - base.getX(), pos.getY() - base.getY(), pos.getZ() - base.getZ());
+                entries.add(new Cell(cell, type, tree.getBlockAt(pos).orElse(null)));
+            }
+        }
+        entries.sort(Comparator.comparingLong(e -> e.cell));
+
+        int size = entries.size();
+        long[] cells = new long[size];
+        byte[] types = new byte[size];
+        BlockState[] states = new BlockState[size];
+        for (int i = 0; i < size; i++) {
+            Cell entry = entries.get(i);
+            cells[i] = entry.cell;
+            types[i] = (byte) entry.type.ordinal();
+            states[i] = entry.state;
+        }
+        return new TreeShape(cells, types, states);
+    }
+
+    public static long pack(int dx, int dy, int dz) {
+        return ((long) (dy + OFFSET) & MASK) << (2 * BITS)
+            | ((long) (dz + OFFSET) & MASK) << BITS
+            | ((long) (dx + OFFSET) & MASK);
+    }
+
+    public static int unpackX(long cell) {
+        return (int) (cell & MASK) - OFFSET;
+    }
+
+    public static int unpackY(long cell) {
+        return (int) ((cell >>> (2 * BITS)) & MASK) - OFFSET;
+    }
+
+    public static int unpackZ(long cell) {
+        return (int) ((cell >>> BITS) & MASK) - OFFSET;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public long getCell(int index) {
+        return cells[index];
+    }
+
+    public TreeComponentType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    public BlockState getState(int index) {
+        return states[index];
+    }
+
+    /**
+     * Get index of a packed cell, or a negative value if the shape does not contain it
+     */
+    public int indexOf(long cell) {
+        return Arrays.binarySearch(cells, cell);
+    }
+
+    /**
+     * Get a key shared by shapes that differ only in their leaves: it covers every non-leaf
+     * cell exactly, and of the leaves only which leaf blocks are used
+     */
+    public long coarseKey() {
+        long key = 1;
+        long leafBlocks = 0;
+        int leaves = TreeComponentType.LEAVES.ordinal();
+        for (int i = 0; i < cells.length; i++) {
+            if (types[i] == leaves) {
+                // Order independent, and each leaf block counts once
+                leafBlocks |= 1L << (states[i] == null ? 0 : System.identityHashCode(states[i].getBlock()) & 63);
+            } else {
+                key = 31 * (31 * (31 * key + cells[i]) + types[i]) + System.identityHashCode(states[i]);
+            }
+        }
+        return 31 * key + leafBlocks;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TreeShape other)) return false;
+        return hash == other.hash
+            && Arrays.equals(cells, other.cells)
+            && Arrays.equals(types, other.types)
+            && Arrays.equals(states, other.states);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private static final class Cell {
+        final long cell;
+        final TreeComponentType type;
+        final BlockState state;
+
+        Cell(long cell, TreeComponentType type, BlockState state) {
+            this.cell = cell;
+            this.type = type;
+            this.state = state;
+        }
+    }
+}
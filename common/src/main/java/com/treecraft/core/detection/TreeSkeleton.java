@@ -0,0 +1,449 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.*;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.phys.Vec3;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Graph of the woody parts of a tree.
+ * <p>
+ * Log blocks (trunk and branches) are grouped into level sets by their step distance from the
+ * base, and each connected group of one level becomes a slice with a centroid. Chains of slices
+ * without forks collapse into {@link Segment}s, so the skeleton only has {@link Node}s at the
+ * base, at forks and at branch tips. Every leaf block is attached to the segment of the log it
+ * is closest to. Obtain it through {@link TreeStructure#getSkeleton()}, which extracts it off the
+ * server thread and caches it until the tree changes.
+ */
+public class TreeSkeleton {
+    private static final TreeSkeleton EMPTY = new TreeSkeleton(Collections.emptyList(), Collections.emptyList());
+
+    private final List<Node> nodes;
+    private final List<Segment> segments;
+
+    private TreeSkeleton(List<Node> nodes, List<Segment> segments) {
+        this.nodes = nodes;
+        this.segments = segments;
+    }
+
+    /**
+     * Extract the skeleton of a tree on the calling thread
+     */
+    public static TreeSkeleton extract(TreeStructure tree) {
+        return extract(snapshot(tree));
+    }
+
+    /**
+     * Copy the positions the extraction needs, so it can run while the tree is modified
+     */
+    static Input snapshot(TreeStructure tree) {
+        LongArrayList logs = new LongArrayList();
+        LongArrayList leaves = new LongArrayList();
+        tree.forEachPosition(TreeComponentType.TRUNK, logs::add);
+        tree.forEachPosition(TreeComponentType.BRANCH, logs::add);
+        tree.forEachPosition(TreeComponentType.LEAVES, leaves::add);
+        return new Input(tree.getBasePos().asLong(), logs.toLongArray(), leaves.toLongArray());
+    }
+
+    static TreeSkeleton extract(Input input) {
+        if (input.logs.length == 0) {
+            return EMPTY;
+        }
+        return new Builder(input).build();
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Get the base node, or null if the tree has no logs
+     */
+    @Nullable
+    public Node getRoot() {
+        return nodes.isEmpty() ? null : nodes.get(0);
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TreeSkeleton{nodes=%d, segments=%d}", nodes.size(), segments.size());
+    }
+
+    public enum NodeKind {
+        ROOT,
+        FORK,
+        TIP
+    }
+
+    /**
+     * A point where segments meet, or where a segment ends
+     */
+    public static final class Node {
+        private final int id;
+        private final NodeKind kind;
+        private final Vec3 position;
+
+        Node(int id, NodeKind kind, Vec3 position) {
+            this.id = id;
+            this.kind = kind;
+            this.position = position;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public NodeKind getKind() {
+            return kind;
+        }
+
+        /**
+         * Get the centroid of the log slice at this node, in block centre coordinates
+         */
+        public Vec3 getPosition() {
+            return position;
+        }
+    }
+
+    /**
+     * An unbranched run of logs between two nodes, with the leaves attached to it
+     */
+    public static final class Segment {
+        private final Node start;
+        private final Node end;
+        private final double length;
+        private final long[] blocks;
+        private final long[] leaves;
+
+        Segment(Node start, Node end, double length, long[] blocks, long[] leaves) {
+            this.start = start;
+            this.end = end;
+            this.length = length;
+            this.blocks = blocks;
+            this.leaves = leaves;
+        }
+
+        /**
+         * Get the node nearer the base
+         */
+        public Node getStart() {
+            return start;
+        }
+
+        public Node getEnd() {
+            return end;
+        }
+
+        /**
+         * Get the length of the polyline through the slice centroids
+         */
+        public double getLength() {
+            return length;
+        }
+
+        /**
+         * Get the unit vector from the start node to the end node, or zero for a single slice
+         */
+        public Vec3 getDirection() {
+            return end.position.subtract(start.position).normalize();
+        }
+
+        /**
+         * Get the packed positions of the logs in this segment
+         */
+        public long[] getBlocks() {
+            return blocks;
+        }
+
+        /**
+         * Get the packed positions of the leaves attached to this segment
+         */
+        public long[] getLeaves() {
+            return leaves;
+        }
+    }
+
+    static final class Input {
+        final long base;
+        final long[] logs;
+        final long[] leaves;
+
+        Input(long base, long[] logs, long[] leaves) {
+            this.base = base;
+            this.logs = logs;
+            this.leaves = leaves;
+        }
+    }
+
+    private static final class Builder {
+        private final Input input;
+        private final LongSet logs;
+        private final Long2IntMap level = new Long2IntOpenHashMap();
+        private final Long2IntMap sliceOf = new Long2IntOpenHashMap();
+        private final List<LongArrayList> sliceBlocks = new ArrayList<>();
+        private final IntList sliceParent = new IntArrayList();
+        private final List<IntList> sliceChildren = new ArrayList<>();
+
+        Builder(Input input) {
+            this.input = input;
+            this.logs = new LongOpenHashSet(input.logs);
+            level.defaultReturnValue(-1);
+            sliceOf.defaultReturnValue(-1);
+        }
+
+        TreeSkeleton build() {
+            computeLevels();
+            computeSlices();
+            linkSlices();
+            return collapse();
+        }
+
+        /**
+         * Step distance of every log from the base, starting over at the lowest unreached log
+         * for parts not connected to the base
+         */
+        private void computeLevels() {
+            LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+            long start = logs.contains(input.base) ? input.base : lowest(logs);
+            while (true) {
+                level.put(start, 0);
+                queue.enqueue(start);
+                while (!queue.isEmpty()) {
+                    long pos = queue.dequeueLong();
+                    int next = level.get(pos) + 1;
+                    forEachNeighbor(pos, neighbor -> {
+                        if (logs.contains(neighbor) && !level.containsKey(neighbor)) {
+                            level.put(neighbor, next);
+                            queue.enqueue(neighbor);
+                        }
+                    });
+                }
+                if (level.size() == logs.size()) break;
+
+                LongSet unreached = new LongOpenHashSet(logs);
+                unreached.removeAll(level.keySet());
+                start = lowest(unreached);
+            }
+        }
+
+        /**
+         * Split every level into connected slices
+         */
+        private void computeSlices() {
+            LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+            for (long log : input.logs) {
+                if (sliceOf.containsKey(log)) continue;
+
+                int slice = sliceBlocks.size();
+                int sliceLevel = level.get(log);
+                LongArrayList blocks = new LongArrayList();
+                sliceBlocks.add(blocks);
+                sliceParent.add(-1);
+                sliceChildren.add(new IntArrayList());
+
+                sliceOf.put(log, slice);
+                queue.enqueue(log);
+                while (!queue.isEmpty()) {
+                    long pos = queue.dequeueLong();
+                    blocks.add(pos);
+                    forEachNeighbor(pos, neighbor -> {
+                        if (level.get(neighbor) == sliceLevel && !sliceOf.containsKey(neighbor)) {
+                            sliceOf.put(neighbor, slice);
+                            queue.enqueue(neighbor);
+                        }
+                    });
+                }
+            }
+        }
+
+        /**
+         * Give every slice the slice one level below it that it touches
+         */
+        private void linkSlices() {
+            for (int slice = 0; slice < sliceBlocks.size(); slice++) {
+                int sliceLevel = level.get(sliceBlocks.get(slice).getLong(0));
+                if (sliceLevel == 0) continue;
+
+                int[] parent = {-1};
+                for (LongIterator it = sliceBlocks.get(slice).iterator(); it.hasNext() && parent[0] < 0; ) {
+                    forEachNeighbor(it.nextLong(), neighbor -> {
+                        if (parent[0] < 0 && level.get(neighbor) == sliceLevel - 1) {
+                            parent[0] = sliceOf.get(neighbor);
+                        }
+                    });
+                }
+                sliceParent.set(slice, parent[0]);
+                sliceChildren.get(parent[0]).add(slice);
+            }
+        }
+
+        private TreeSkeleton collapse() {
+            Vec3[] centroids = new Vec3[sliceBlocks.size()];
+            for (int slice = 0; slice < centroids.length; slice++) {
+                centroids[slice] = centroid(sliceBlocks.get(slice));
+            }
+
+            List<Node> nodes = new ArrayList<>();
+            List<Segment> segments = new ArrayList<>();
+            List<LongArrayList> segmentBlocks = new ArrayList<>();
+            int[] segmentOfSlice = new int[sliceBlocks.size()];
+            Node[] nodeOfSlice = new Node[sliceBlocks.size()];
+            IntArrayList stack = new IntArrayList();
+            for (int slice = 0; slice < sliceBlocks.size(); slice++) {
+                if (sliceParent.getInt(slice) >= 0) continue;
+
+                nodeOfSlice[slice] = addNode(nodes, NodeKind.ROOT, centroids[slice]);
+                if (sliceChildren.get(slice).isEmpty()) {
+                    // A lone slice becomes a segment of zero length
+                    segmentOfSlice[slice] = segments.size();
+                    segmentBlocks.add(new LongArrayList(sliceBlocks.get(slice)));
+                    segments.add(new Segment(nodeOfSlice[slice], nodeOfSlice[slice], 0, null, null));
+                } else {
+                    stack.add(slice);
+                }
+            }
+
+            // Follow runs of single-child slices down from every root and fork
+            while (!stack.isEmpty()) {
+                int from = stack.popInt();
+                IntList children = sliceChildren.get(from);
+                for (int c = 0; c < children.size(); c++) {
+                    LongArrayList blocks = new LongArrayList();
+                    if (c == 0 && sliceParent.getInt(from) < 0) {
+                        // The base slice belongs to the first segment leaving it
+                        blocks.addAll(sliceBlocks.get(from));
+                        segmentOfSlice[from] = segments.size();
+                    }
+
+                    double length = 0;
+                    int previous = from;
+                    int current = children.getInt(c);
+                    while (true) {
+                        blocks.addAll(sliceBlocks.get(current));
+                        segmentOfSlice[current] = segments.size();
+                        length += centroids[current].distanceTo(centroids[previous]);
+                        if (sliceChildren.get(current).size() != 1) break;
+                        previous = current;
+                        current = sliceChildren.get(current).getInt(0);
+                    }
+
+                    NodeKind kind = sliceChildren.get(current).isEmpty() ? NodeKind.TIP : NodeKind.FORK;
+                    nodeOfSlice[current] = addNode(nodes, kind, centroids[current]);
+                    if (kind == NodeKind.FORK) {
+                        stack.add(current);
+                    }
+                    segmentBlocks.add(blocks);
+                    segments.add(new Segment(nodeOfSlice[from], nodeOfSlice[current], length, null, null));
+                }
+            }
+
+            List<LongArrayList> segmentLeaves = attachLeaves(segmentOfSlice, segments.size());
+            List<Segment> result = new ArrayList<>(segments.size());
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                result.add(new Segment(segment.start, segment.end, segment.length,
+                    segmentBlocks.get(i).toLongArray(), segmentLeaves.get(i).toLongArray()));
+            }
+            return new TreeSkeleton(Collections.unmodifiableList(nodes), Collections.unmodifiableList(result));
+        }
+
+        /**
+         * Assign each leaf to the segment of the nearest log, measured through connected leaves
+         */
+        private List<LongArrayList> attachLeaves(int[] segmentOfSlice, int segmentCount) {
+            List<LongArrayList> leaves = new ArrayList<>(segmentCount);
+            for (int i = 0; i < segmentCount; i++) {
+                leaves.add(new LongArrayList());
+            }
+
+            LongSet remaining = new LongOpenHashSet(input.leaves);
+            Long2IntMap owner = new Long2IntOpenHashMap();
+            LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+            for (long log : input.logs) {
+                owner.put(log, segmentOfSlice[sliceOf.get(log)]);
+                queue.enqueue(log);
+            }
+            while (!queue.isEmpty()) {
+                long pos = queue.dequeueLong();
+                int segment = owner.get(pos);
+                for (Direction direction : Direction.values()) {
+                    long neighbor = BlockPos.offset(pos, direction);
+                    if (remaining.remove(neighbor)) {
+                        owner.put(neighbor, segment);
+                        leaves.get(segment).add(neighbor);
+                        queue.enqueue(neighbor);
+                    }
+                }
+            }
+
+            // Leaves not connected to any log go to the first segment
+            for (LongIterator it = remaining.iterator(); it.hasNext(); ) {
+                leaves.get(0).add(it.nextLong());
+            }
+            return leaves;
+        }
+
+        private static Node addNode(List<Node> nodes, NodeKind kind, Vec3 position) {
+            Node node = new Node(nodes.size(), kind, position);
+            nodes.add(node);
+            return node;
+        }
+
+        private static Vec3 centroid(LongArrayList blocks) {
+            double x = 0, y = 0, z = 0;
+            for (LongIterator it = blocks.iterator(); it.hasNext(); ) {
+                long pos = it.nextLong();
+                x += BlockPos.getX(pos);
+                y += BlockPos.getY(pos);
+                z += BlockPos.getZ(pos);
+            }
+            int n = blocks.size();
+            return new Vec3(x / n + 0.5, y / n + 0.5, z / n + 0.5);
+        }
+
+        private static long lowest(LongSet positions) {
+            long lowest = 0;
+            int lowestY = Integer.MAX_VALUE;
+            for (LongIterator it = positions.iterator(); it.hasNext(); ) {
+                long pos = it.nextLong();
+                if (BlockPos.getY(pos) < lowestY) {
+                    lowestY = BlockPos.getY(pos);
+                    lowest = pos;
+                }
+            }
+            return lowest;
+        }
+
+        private static void forEachNeighbor(long pos, LongConsumer action) {
+            int x = BlockPos.getX(pos);
+            int y = BlockPos.getY(pos);
+            int z = BlockPos.getZ(pos);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        if (dx != 0 || dy != 0 || dz != 0) {
+                            action.accept(BlockPos.asLong(x + dx, y + dy, z + dz));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
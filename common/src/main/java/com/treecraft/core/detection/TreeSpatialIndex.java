@@ -0,0 +1,503 @@
+package com.treecraft.core.detection;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+import javax.annotation.Nullable;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Spatial index over known tree structures of one level.
+ * Trees are bucketed into every chunk their bounding box overlaps, so radius, box and
+ * nearest-tree queries only touch the chunks around the query instead of flood filling.
+ * Trees are keyed by base position; putting a tree with a known base replaces the old entry.
+ * <p>
+ * Block changes that add or remove a tree block drop every tree they may touch, and trees
+ * overlapping an unloaded chunk are evicted, so the index only describes loaded trees as they
+ * currently are. Dropped trees come back the next time they are detected.
+ * <p>
+ * Entries are stored as {@link CompactTree}s sharing canonical shapes; membership checks run
+ * against the compact form. The first query returning a tree rebuilds its {@link TreeStructure}
+ * outside the lock and keeps it behind a soft reference, so later queries share that instance
+ * and its cached metrics. This trades memory for latency only while the heap has room: under
+ * pressure the structures are reclaimed and the next query pays for a rebuild again.
+ */
+public class TreeSpatialIndex {
+    private static final Map<Level, TreeSpatialIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Long2ObjectMap<List<Entry>> chunks = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<Entry> trees = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Get the index for a level, creating it on first use
+     */
+    public static TreeSpatialIndex forLevel(Level level) {
+        return INDEXES.computeIfAbsent(level, k -> new TreeSpatialIndex());
+    }
+
+    /**
+     * Get the index for a level if one has been created
+     */
+    @Nullable
+    public static TreeSpatialIndex getIfPresent(Level level) {
+        return INDEXES.get(level);
+    }
+
+    /**
+     * Drop the indexed trees a block change may have altered.
+     * Called for every block change in a loaded chunk; changes that keep the block's
+     * component type, such as leaf distance updates, keep the trees around them.
+     */
+    public static void onBlockChanged(Level level, BlockPos pos, BlockState oldState, BlockState newState) {
+        TreeSpatialIndex index = INDEXES.get(level);
+        if (index == null || !index.hasTreesNear(pos)) return;
+
+        TreeBlockDetector detector = TreeBlockDetector.getInstance();
+        if (detector.detectBlockType(oldState) != detector.detectBlockType(newState)) {
+            index.invalidate(pos);
+        }
+    }
+
+    /**
+     * Evict the trees overlapping a chunk that is being unloaded
+     */
+    public static void onChunkUnload(Level level, ChunkPos pos) {
+        TreeSpatialIndex index = INDEXES.get(level);
+        if (index != null) {
+            index.evictChunk(pos.x, pos.z);
+        }
+    }
+
+    /**
+     * Add a tree, or replace the tree previously indexed at the same base position
+     */
+    public void put(TreeStructure tree) {
+        AABB box = tree.getBoundingBox();
+        if (box == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            long key = tree.getBasePos().asLong();
+            Entry previous = trees.get(key);
+            Entry entry = new Entry(key, CompactTree.of(tree, previous != null ? previous.compact : null), box);
+            trees.put(key, entry);
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the tree indexed at a base position
+     */
+    public boolean remove(BlockPos basePos) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = trees.remove(basePos.asLong());
+            if (previous == null) {
+                return false;
+            }
+            unlink(previous);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a tree
+     */
+    public boolean remove(TreeStructure tree) {
+        return remove(tree.getBasePos());
+    }
+
+    /**
+     * Remove every tree containing or touching a position
+     *
+     * @return the number of trees removed
+     */
+    public int invalidate(BlockPos pos) {
+        List<Entry> stale = new ArrayList<>(1);
+        lock.readLock().lock();
+        try {
+            forEachBucketNear(pos, bucket -> {
+                for (Entry entry : bucket) {
+                    if (entry.touches(pos) && !stale.contains(entry)) {
+                        stale.add(entry);
+                    }
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stale.isEmpty() ? 0 : removeAll(stale);
+    }
+
+    /**
+     * Remove every tree overlapping a chunk
+     *
+     * @return the number of trees removed
+     */
+    public int evictChunk(int chunkX, int chunkZ) {
+        lock.writeLock().lock();
+        try {
+            List<Entry> bucket = chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+            return bucket == null ? 0 : removeAll(new ArrayList<>(bucket));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check if an indexed tree contains a position, without materializing it
+     */
+    public boolean hasTreeAt(BlockPos pos) {
+        lock.readLock().lock();
+        try {
+            List<Entry> bucket = chunks.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+            if (bucket != null) {
+                for (Entry entry : bucket) {
+                    if (entry.contains(pos) && entry.compact.contains(pos)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the indexed tree containing a position
+     */
+    public Optional<TreeStructure> getTreeAt(BlockPos pos) {
+        Entry found = null;
+        lock.readLock().lock();
+        try {
+            List<Entry> bucket = chunks.get(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+            if (bucket != null) {
+                for (Entry entry : bucket) {
+                    if (entry.contains(pos) && entry.compact.contains(pos)) {
+                        found = entry;
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found == null ? Optional.empty() : Optional.of(found.tree());
+    }
+
+    /**
+     * Get all trees whose bounding box intersects a box
+     */
+    public List<TreeStructure> getTreesInBox(AABB box) {
+        List<Entry> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            int minChunkX = Mth.floor(box.minX) >> 4;
+            int minChunkZ = Mth.floor(box.minZ) >> 4;
+            int maxChunkX = Mth.floor(box.maxX) >> 4;
+            int maxChunkZ = Mth.floor(box.maxZ) >> 4;
+
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                    List<Entry> bucket = chunks.get(ChunkPos.asLong(cx, cz));
+                    if (bucket == null) continue;
+                    for (Entry entry : bucket) {
+                        if (entry.box.intersects(box) && seen.add(entry)) {
+                            found.add(entry);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return trees(found);
+    }
+
+    /**
+     * Get all trees whose bounding box lies at least partly within a radius
+     */
+    public List<TreeStructure> getTreesInRadius(Vec3 center, double radius) {
+        double radiusSqr = radius * radius;
+        List<Entry> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            int minChunkX = Mth.floor(center.x - radius) >> 4;
+            int minChunkZ = Mth.floor(center.z - radius) >> 4;
+            int maxChunkX = Mth.floor(center.x + radius) >> 4;
+            int maxChunkZ = Mth.floor(center.z + radius) >> 4;
+
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                    List<Entry> bucket = chunks.get(ChunkPos.asLong(cx, cz));
+                    if (bucket == null) continue;
+                    for (Entry entry : bucket) {
+                        if (entry.distanceSqr(center) <= radiusSqr && seen.add(entry)) {
+                            found.add(entry);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return trees(found);
+    }
+
+    /**
+     * Get the nearest tree within a maximum distance
+     */
+    public Optional<TreeStructure> getNearestTree(Vec3 pos, double maxDistance) {
+        List<TreeStructure> nearest = getNearestTrees(pos, 1, maxDistance);
+        return nearest.isEmpty() ? Optional.empty() : Optional.of(nearest.get(0));
+    }
+
+    /**
+     * Get up to {@code count} trees closest to a position, nearest first.
+     * Distance is measured to the tree's bounding box. Chunks are searched in rings around
+     * the position and the search stops once no closer tree can be found further out.
+     */
+    public List<TreeStructure> getNearestTrees(Vec3 pos, int count, double maxDistance) {
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+
+        double maxDistanceSqr = maxDistance * maxDistance;
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.distanceSqr).reversed());
+        Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        int centerX = Mth.floor(pos.x) >> 4;
+        int centerZ = Mth.floor(pos.z) >> 4;
+        int maxRing = Mth.ceil(maxDistance / 16.0) + 1;
+
+        lock.readLock().lock();
+        try {
+            for (int ring = 0; ring <= maxRing; ring++) {
+                // Nothing in this ring or beyond can be closer than the ring's inner edge
+                double ringDistance = Math.max(0, (ring - 1) * 16.0);
+                if (ringDistance * ringDistance > maxDistanceSqr) break;
+                if (best.size() >= count && ringDistance * ringDistance > best.peek().distanceSqr) break;
+
+                for (int cx = centerX - ring; cx <= centerX + ring; cx++) {
+                    for (int cz = centerZ - ring; cz <= centerZ + ring; cz++) {
+                        if (Math.abs(cx - centerX) != ring && Math.abs(cz - centerZ) != ring) continue;
+
+                        List<Entry> bucket = chunks.get(ChunkPos.asLong(cx, cz));
+                        if (bucket == null) continue;
+                        for (Entry entry : bucket) {
+                            if (!seen.add(entry)) continue;
+
+                            double distanceSqr = entry.distanceSqr(pos);
+                            if (distanceSqr > maxDistanceSqr) continue;
+
+                            if (best.size() < count) {
+                                best.add(new Candidate(entry, distanceSqr));
+                            } else if (distanceSqr < best.peek().distanceSqr) {
+                                best.poll();
+                                best.add(new Candidate(entry, distanceSqr));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(c -> c.distanceSqr));
+        List<Entry> found = new ArrayList<>(sorted.size());
+        for (Candidate candidate : sorted) {
+            found.add(candidate.entry);
+        }
+        return trees(found);
+    }
+
+    /**
+     * Get number of indexed trees
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trees.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Remove all indexed trees
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            trees.clear();
+            chunks.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean hasTreesNear(BlockPos pos) {
+        lock.readLock().lock();
+        try {
+            boolean[] found = new boolean[1];
+            forEachBucketNear(pos, bucket -> found[0] = true);
+            return found[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the structures of entries collected by a query; called after releasing the lock so
+     * rebuilding uncached trees never blocks writers
+     */
+    private static List<TreeStructure> trees(List<Entry> entries) {
+        List<TreeStructure> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            result.add(entry.tree());
+        }
+        return result;
+    }
+
+    /**
+     * Visit the buckets of every chunk within one block of a position
+     */
+    private void forEachBucketNear(BlockPos pos, Consumer<List<Entry>> action) {
+        for (int cx = (pos.getX() - 1) >> 4; cx <= (pos.getX() + 1) >> 4; cx++) {
+            for (int cz = (pos.getZ() - 1) >> 4; cz <= (pos.getZ() + 1) >> 4; cz++) {
+                List<Entry> bucket = chunks.get(ChunkPos.asLong(cx, cz));
+                if (bucket != null) {
+                    action.accept(bucket);
+                }
+            }
+        }
+    }
+
+    private int removeAll(List<Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (Entry entry : entries) {
+                if (trees.remove(entry.key, entry)) {
+                    unlink(entry);
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(Entry entry) {
+        for (int cx = entry.minChunkX; cx <= entry.maxChunkX; cx++) {
+            for (int cz = entry.minChunkZ; cz <= entry.maxChunkZ; cz++) {
+                chunks.computeIfAbsent(ChunkPos.asLong(cx, cz), k -> new ArrayList<>(2)).add(entry);
+            }
+        }
+    }
+
+    private void unlink(Entry entry) {
+        for (int cx = entry.minChunkX; cx <= entry.maxChunkX; cx++) {
+            for (int cz = entry.minChunkZ; cz <= entry.maxChunkZ; cz++) {
+                long key = ChunkPos.asLong(cx, cz);
+                List<Entry> bucket = chunks.get(key);
+                if (bucket != null) {
+                    bucket.remove(entry);
+                    if (bucket.isEmpty()) {
+                        chunks.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        final long key;
+        final CompactTree compact;
+        final AABB box;
+        final int minChunkX;
+        final int minChunkZ;
+        final int maxChunkX;
+        final int maxChunkZ;
+        // Built structure, kept so repeated queries share it and its cached metrics
+        private volatile SoftReference<TreeStructure> built;
+
+        Entry(long key, CompactTree compact, AABB box) {
+            this.key = key;
+            this.compact = compact;
+            this.box = box;
+            // Tree boxes are block aligned with an exclusive max corner
+            this.minChunkX = Mth.floor(box.minX) >> 4;
+            this.minChunkZ = Mth.floor(box.minZ) >> 4;
+            this.maxChunkX = (Mth.floor(box.maxX) - 1) >> 4;
+            this.maxChunkZ = (Mth.floor(box.maxZ) - 1) >> 4;
+        }
+
+        TreeStructure tree() {
+            SoftReference<TreeStructure> ref = built;
+            TreeStructure tree = ref != null ? ref.get() : null;
+            if (tree == null) {
+                // Racing callers may both build; either result is equivalent
+                tree = compact.toStructure();
+                built = new SoftReference<>(tree);
+            }
+            return tree;
+        }
+
+        boolean contains(BlockPos pos) {
+            return pos.getX() >= box.minX && pos.getX() < box.maxX
+                && pos.getY() >= box.minY && pos.getY() < box.maxY
+                && pos.getZ() >= box.minZ && pos.getZ() < box.maxZ;
+        }
+
+        boolean touches(BlockPos pos) {
+            return pos.getX() >= box.minX - 1 && pos.getX() <= box.maxX
+                && pos.getY() >= box.minY - 1 && pos.getY() <= box.maxY
+                && pos.getZ() >= box.minZ - 1 && pos.getZ() <= box.maxZ;
+        }
+
+        double distanceSqr(Vec3 pos) {
+            double dx = Math.max(0, Math.max(box.minX - pos.x, pos.x - box.maxX));
+            double dy = Math.max(0, Math.max(box.minY - pos.y, pos.y - box.maxY));
+            double dz = Math.max(0, Math.max(box.minZ - pos.z, pos.z - box.maxZ));
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    private static final class Candidate {
+        final Entry entry;
+        final double distanceSqr;
+
+        Candidate(Entry entry, double distanceSqr) {
+            this.entry = entry;
+            this.distanceSqr = distanceSqr;
+        }
+    }
+}
@@ -1,32 +1,55 @@
 package com.treecraft.core.detection;
 
 import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.registry.StyleMatch;
+import com.treecraft.core.registry.StyleRegistry;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.phys.AABB;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 public class TreeStructure {
     private final BlockPos basePos;
     private final Map<TreeComponentType, Map<BlockPos, BlockState>> components;
     private AABB boundingBox;
+    private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
     private final long detectedTime;
+    private final TreeFingerprint fingerprint = new TreeFingerprint();
+    private StyleMatch species;
+    private StyleRegistry.Snapshot speciesSnapshot;
+    private TreeMetrics metrics;
+    private CompletableFuture<TreeSkeleton> skeleton;
 
     public TreeStructure(BlockPos basePos) {
+        this(basePos, System.currentTimeMillis());
+    }
+
+    TreeStructure(BlockPos basePos, long detectedTime) {
         this.basePos = basePos;
         this.components = new EnumMap<>(TreeComponentType.class);
-        this.detectedTime = System.currentTimeMillis();
-        updateBoundingBox();
+        this.detectedTime = detectedTime;
     }
 
     /**
      * Add a component to the tree
      */
     public void addComponent(BlockPos pos, BlockState state, TreeComponentType type) {
-        components.computeIfAbsent(type, k -> new HashMap<>())
+        BlockState previous = components.computeIfAbsent(type, k -> new HashMap<>())
                   .put(pos, state);
-        updateBoundingBox();
+        if (previous != null) {
+            fingerprint.remove(type, previous.getBlock());
+        }
+        fingerprint.add(type, state.getBlock());
+        speciesSnapshot = null;
+        metrics = null;
+        skeleton = null;
+        expandBoundingBox(pos);
     }
 
     /**
@@ -102,6 +125,49 @@ public class TreeStructure {
         return distribution;
     }
 
+    /**
+     * Get the per-component block histogram of this tree
+     */
+    public TreeFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Get the registered style this tree most likely belongs to. The match is cached until the
+     * tree or the style registry changes.
+     */
+    public Optional<StyleMatch> getSpecies() {
+        StyleRegistry.Snapshot current = StyleRegistry.snapshot();
+        if (speciesSnapshot != current) {
+            species = fingerprint.match(current);
+            speciesSnapshot = current;
+        }
+        return Optional.ofNullable(species);
+    }
+
+    /**
+     * Get the shape summary of this tree. It is computed on first use and cached until the
+     * tree changes.
+     */
+    public TreeMetrics getMetrics() {
+        if (metrics == null) {
+            metrics = TreeMetrics.compute(this);
+        }
+        return metrics;
+    }
+
+    /**
+     * Get the skeleton graph of this tree. Extraction runs on the detection workers from a copy
+     * of the current positions; the result is cached until the tree changes.
+     */
+    public CompletableFuture<TreeSkeleton> getSkeleton() {
+        if (skeleton == null) {
+            TreeSkeleton.Input input = TreeSkeleton.snapshot(this);
+            skeleton = AsyncTreeDetector.getInstance().supplyAsync(() -> TreeSkeleton.extract(input));
+        }
+        return skeleton;
+    }
+
     /**
      * Check if size is reasonable
      */
@@ -150,42 +216,95 @@ public class TreeStructure {
     }
 
     /**
-     * Update bounding box based on current components
+     * Grow the bounding box to include a position
      */
-    private void updateBoundingBox() {
-        if (components.isEmpty()) {
-            boundingBox = null;
-            return;
+    private void expandBoundingBox(BlockPos pos) {
+        if (pos.getX() < minX || pos.getY() < minY || pos.getZ() < minZ
+            || pos.getX() > maxX || pos.getY() > maxY || pos.getZ() > maxZ) {
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxY = Math.max(maxY, pos.getY());
+            maxZ = Math.max(maxZ, pos.getZ());
+            boundingBox = new AABB(minX, minY, minZ, maxX + 1, maxY + 1, maxZ + 1);
         }
+    }
 
-        int minX = Integer.MAX_VALUE;
-        int minY = Integer.MAX_VALUE;
-        int minZ = Integer.MAX_VALUE;
-        int maxX = Integer.MIN_VALUE;
-        int maxY = Integer.MIN_VALUE;
-        int maxZ = Integer.MIN_VALUE;
+    /**
+     * Get all block positions in tree
+     */
+    public Set<BlockPos> getAllPositions() {
+        Set<BlockPos> allPositions = new HashSet<>();
+        components.values().forEach(map -> allPositions.addAll(map.keySet()));
+        return allPositions;
+    }
 
+    /**
+     * Visit every position of the tree as a packed {@link BlockPos#asLong()} value, without copying
+     */
+    public void forEachPosition(LongConsumer action) {
         for (Map<BlockPos, BlockState> typeMap : components.values()) {
             for (BlockPos pos : typeMap.keySet()) {
-                minX = Math.min(minX, pos.getX());
-                minY = Math.min(minY, pos.getY());
-                minZ = Math.min(minZ, pos.getZ());
-                maxX = Math.max(maxX, pos.getX());
-                maxY = Math.max(maxY, pos.getY());
-                maxZ = Math.max(maxZ, pos.getZ());
+                action.accept(pos.asLong());
             }
         }
+    }
 
-        boundingBox = new AABB(minX, minY, minZ, maxX + 1, maxY + 1, maxZ + 1);
+    /**
+     * Visit every position of one component type as a packed value
+     */
+    public void forEachPosition(TreeComponentType type, LongConsumer action) {
+        Map<BlockPos, BlockState> typeMap = components.get(type);
+        if (typeMap != null) {
+            for (BlockPos pos : typeMap.keySet()) {
+                action.accept(pos.asLong());
+            }
+        }
     }
 
     /**
-     * Get all block positions in tree
+     * Visit every block of the tree with its component type
      */
-    public Set<BlockPos> getAllPositions() {
-        Set<BlockPos> allPositions = new HashSet<>();
-        components.values().forEach(map -> allPositions.addAll(map.keySet()));
-        return allPositions;
+    public void forEachBlock(BlockVisitor visitor) {
+        components.forEach((type, typeMap) -> typeMap.forEach((pos, state) -> visitor.accept(pos, state, type)));
+    }
+
+    /**
+     * Get a splittable spliterator over the packed positions of the tree
+     */
+    public Spliterator.OfLong positionSpliterator() {
+        List<Spliterator<BlockPos>> parts = new ArrayList<>(components.size());
+        for (Map<BlockPos, BlockState> typeMap : components.values()) {
+            parts.add(typeMap.keySet().spliterator());
+        }
+        return new PositionSpliterator(parts);
+    }
+
+    /**
+     * Get a splittable spliterator over the packed positions of one component type
+     */
+    public Spliterator.OfLong positionSpliterator(TreeComponentType type) {
+        Map<BlockPos, BlockState> typeMap = components.get(type);
+        return typeMap != null
+            ? new PositionSpliterator(new ArrayList<>(List.of(typeMap.keySet().spliterator())))
+            : Spliterators.emptyLongSpliterator();
+    }
+
+    /**
+     * Stream the packed positions of the tree
+     *
+     * @param parallel whether the stream may split across threads
+     */
+    public LongStream positions(boolean parallel) {
+        return StreamSupport.longStream(positionSpliterator(), parallel);
+    }
+
+    /**
+     * Stream the packed positions of one component type
+     */
+    public LongStream positions(TreeComponentType type, boolean parallel) {
+        return StreamSupport.longStream(positionSpliterator(type), parallel);
     }
 
     /**
@@ -208,6 +327,77 @@ public class TreeStructure {
         return Optional.empty();
     }
 
+    /**
+     * Receives the blocks of a tree
+     */
+    @FunctionalInterface
+    public interface BlockVisitor {
+        void accept(BlockPos pos, BlockState state, TreeComponentType type);
+    }
+
+    /**
+     * Maps {@link BlockPos} spliterators of several component maps to packed positions. Splits
+     * hand off whole component maps first and then defer to the map's own spliterator.
+     */
+    private static final class PositionSpliterator implements Spliterator.OfLong {
+        private final List<Spliterator<BlockPos>> parts;
+        private int index;
+
+        PositionSpliterator(List<Spliterator<BlockPos>> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            while (index < parts.size()) {
+                if (parts.get(index).tryAdvance(pos -> action.accept(pos.asLong()))) {
+                    return true;
+                }
+                index++;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            for (; index < parts.size(); index++) {
+                parts.get(index).forEachRemaining(pos -> action.accept(pos.asLong()));
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int remaining = parts.size() - index;
+            if (remaining > 1) {
+                int mid = index + remaining / 2;
+                PositionSpliterator prefix = new PositionSpliterator(new ArrayList<>(parts.subList(index, mid)));
+                index = mid;
+                return prefix;
+            }
+            if (remaining == 1) {
+                Spliterator<BlockPos> split = parts.get(index).trySplit();
+                if (split != null) {
+                    return new PositionSpliterator(new ArrayList<>(List.of(split)));
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for (int i = index; i < parts.size(); i++) {
+                size += parts.get(i).estimateSize();
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+
     @Override
     public String toString() {
         return String.format(
@@ -0,0 +1,283 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.util.Mth;
+import net.minecraft.util.SimpleBitStorage;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Versioned binary and NBT encoding of a {@link TreeStructure}.
+ * <p>
+ * Positions are stored relative to the tree's bounding box as linear cell indices in sorted
+ * order, written as varint runs of consecutive cells with the gap before each run. Block states
+ * go into a local palette, and the component type and palette index of every cell are
+ * bit-packed into separate columns. The NBT form names palette states so it survives registry
+ * changes and is meant for storage; the buffer form uses global state ids and is meant for the
+ * network. A position listed under several component types is stored once, with the first type.
+ */
+public final class TreeStructureCodec {
+    public static final int VERSION = 1;
+
+    private static final TreeComponentType[] TYPES = TreeComponentType.values();
+    private static final int TYPE_BITS = Mth.ceillog2(TYPES.length);
+
+    private TreeStructureCodec() {
+    }
+
+    /**
+     * Encode a tree for storage
+     */
+    public static CompoundTag toNbt(TreeStructure tree) {
+        Layout layout = Layout.of(tree);
+        CompoundTag tag = new CompoundTag();
+        tag.putInt("Version", VERSION);
+        tag.putLong("Base", layout.base.asLong());
+        tag.putLong("Time", layout.detectedTime);
+        tag.putIntArray("Bounds", new int[]{layout.minX, layout.minY, layout.minZ, layout.sizeX, layout.sizeY, layout.sizeZ});
+
+        ListTag palette = new ListTag();
+        for (BlockState state : layout.palette) {
+            palette.add(NbtUtils.writeBlockState(state));
+        }
+        tag.put("Palette", palette);
+        tag.putInt("Count", layout.count);
+        tag.putByteArray("Cells", layout.cells);
+        tag.putLongArray("Types", layout.types);
+        tag.putLongArray("States", layout.states);
+        return tag;
+    }
+
+    /**
+     * Decode a tree written by {@link #toNbt}
+     *
+     * @throws IllegalArgumentException if the tag was written by an unknown version
+     */
+    public static TreeStructure fromNbt(CompoundTag tag) {
+        checkVersion(tag.getInt("Version"));
+        int[] bounds = tag.getIntArray("Bounds");
+
+        ListTag paletteTag = tag.getList("Palette", Tag.TAG_COMPOUND);
+        List<BlockState> palette = new ArrayList<>(paletteTag.size());
+        for (int i = 0; i < paletteTag.size(); i++) {
+            palette.add(NbtUtils.readBlockState(BuiltInRegistries.BLOCK.asLookup(), paletteTag.getCompound(i)));
+        }
+
+        return new Layout(BlockPos.of(tag.getLong("Base")), tag.getLong("Time"),
+            bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5], palette,
+            tag.getInt("Count"), tag.getByteArray("Cells"), tag.getLongArray("Types"), tag.getLongArray("States"))
+            .toStructure();
+    }
+
+    /**
+     * Encode a tree into a buffer
+     */
+    public static void write(FriendlyByteBuf buf, TreeStructure tree) {
+        Layout layout = Layout.of(tree);
+        buf.writeVarInt(VERSION);
+        buf.writeLong(layout.base.asLong());
+        buf.writeLong(layout.detectedTime);
+        buf.writeVarInt(layout.minX);
+        buf.writeVarInt(layout.minY);
+        buf.writeVarInt(layout.minZ);
+        buf.writeVarInt(layout.sizeX);
+        buf.writeVarInt(layout.sizeY);
+        buf.writeVarInt(layout.sizeZ);
+
+        buf.writeVarInt(layout.palette.size());
+        for (BlockState state : layout.palette) {
+            buf.writeVarInt(Block.getId(state));
+        }
+        buf.writeVarInt(layout.count);
+        buf.writeByteArray(layout.cells);
+        buf.writeLongArray(layout.types);
+        buf.writeLongArray(layout.states);
+    }
+
+    /**
+     * Decode a tree written by {@link #write}
+     *
+     * @throws IllegalArgumentException if the buffer was written by an unknown version
+     */
+    public static TreeStructure read(FriendlyByteBuf buf) {
+        checkVersion(buf.readVarInt());
+        BlockPos base = BlockPos.of(buf.readLong());
+        long detectedTime = buf.readLong();
+        int minX = buf.readVarInt();
+        int minY = buf.readVarInt();
+        int minZ = buf.readVarInt();
+        int sizeX = buf.readVarInt();
+        int sizeY = buf.readVarInt();
+        int sizeZ = buf.readVarInt();
+
+        int paletteSize = buf.readVarInt();
+        List<BlockState> palette = new ArrayList<>(paletteSize);
+        for (int i = 0; i < paletteSize; i++) {
+            palette.add(Block.stateById(buf.readVarInt()));
+        }
+        int count = buf.readVarInt();
+        byte[] cells = buf.readByteArray();
+        long[] types = buf.readLongArray();
+        long[] states = buf.readLongArray();
+
+        return new Layout(base, detectedTime, minX, minY, minZ, sizeX, sizeY, sizeZ, palette, count, cells, types, states)
+            .toStructure();
+    }
+
+    private static void checkVersion(int version) {
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported tree structure version " + version);
+        }
+    }
+
+    private static int stateBits(int paletteSize) {
+        return Math.max(1, Mth.ceillog2(paletteSize));
+    }
+
+    /**
+     * The encoded columns of a tree, shared by both formats
+     */
+    private static final class Layout {
+        final BlockPos base;
+        final long detectedTime;
+        final int minX, minY, minZ;
+        final int sizeX, sizeY, sizeZ;
+        final List<BlockState> palette;
+        final int count;
+        final byte[] cells;
+        final long[] types;
+        final long[] states;
+
+        Layout(BlockPos base, long detectedTime, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ,
+               List<BlockState> palette, int count, byte[] cells, long[] types, long[] states) {
+            this.base = base;
+            this.detectedTime = detectedTime;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.palette = palette;
+            this.count = count;
+            this.cells = cells;
+            this.types = types;
+            this.states = states;
+        }
+
+        static Layout of(TreeStructure tree) {
+            BlockPos base = tree.getBasePos();
+            if (tree.getBoundingBox() == null) {
+                return new Layout(base, tree.getDetectedTime(), 0, 0, 0, 0, 0, 0, List.of(), 0,
+                    new byte[0], new long[0], new long[0]);
+            }
+
+            int minX = (int) tree.getBoundingBox().minX - base.getX();
+            int minY = (int) tree.getBoundingBox().minY - base.getY();
+            int minZ = (int) tree.getBoundingBox().minZ - base.getZ();
+            int sizeX = (int) tree.getBoundingBox().getXsize();
+            int sizeZ = (int) tree.getBoundingBox().getZsize();
+            int sizeY = (int) tree.getBoundingBox().getYsize();
+
+            // Y-major cell order, so trunks and canopy layers form long runs
+            Long2ObjectMap<Cell> byIndex = new Long2ObjectOpenHashMap<>(tree.getTotalBlocks());
+            List<BlockState> palette = new ArrayList<>();
+            Reference2IntMap<BlockState> paletteIndex = new Reference2IntOpenHashMap<>();
+            tree.forEachBlock((pos, state, type) -> {
+                long index = ((long) (pos.getY() - base.getY() - minY) * sizeZ + (pos.getZ() - base.getZ() - minZ)) * sizeX
+                    + (pos.getX() - base.getX() - minX);
+                if (byIndex.containsKey(index)) return;
+
+                int paletteId = paletteIndex.computeIfAbsent(state, k -> {
+                    palette.add(state);
+                    return palette.size() - 1;
+                });
+                byIndex.put(index, new Cell(type, paletteId));
+            });
+
+            long[] indices = byIndex.keySet().toLongArray();
+            Arrays.sort(indices);
+
+            int count = indices.length;
+            SimpleBitStorage types = new SimpleBitStorage(TYPE_BITS, count);
+            SimpleBitStorage states = new SimpleBitStorage(stateBits(palette.size()), count);
+            ByteBuf cells = Unpooled.buffer(count);
+            FriendlyByteBuf cellBuf = new FriendlyByteBuf(cells);
+            long next = 0;
+            int i = 0;
+            while (i < count) {
+                int runStart = i;
+                while (i + 1 < count && indices[i + 1] == indices[i] + 1) {
+                    i++;
+                }
+                cellBuf.writeVarLong(indices[runStart] - next);
+                cellBuf.writeVarInt(i - runStart + 1);
+                next = indices[i] + 1;
+                i++;
+            }
+            for (int c = 0; c < count; c++) {
+                Cell cell = byIndex.get(indices[c]);
+                types.set(c, cell.type.ordinal());
+                states.set(c, cell.paletteId);
+            }
+
+            byte[] cellBytes = new byte[cells.readableBytes()];
+            cells.readBytes(cellBytes);
+            return new Layout(base, tree.getDetectedTime(), minX, minY, minZ, sizeX, sizeY, sizeZ, palette, count,
+                cellBytes, types.getRaw(), states.getRaw());
+        }
+
+        TreeStructure toStructure() {
+            TreeStructure tree = new TreeStructure(base, detectedTime);
+            if (count == 0) {
+                return tree;
+            }
+
+            SimpleBitStorage typeColumn = new SimpleBitStorage(TYPE_BITS, count, types);
+            SimpleBitStorage stateColumn = new SimpleBitStorage(stateBits(palette.size()), count, states);
+            FriendlyByteBuf cellBuf = new FriendlyByteBuf(Unpooled.wrappedBuffer(cells));
+            long layer = (long) sizeX * sizeZ;
+            long index = 0;
+            int c = 0;
+            while (c < count) {
+                index += cellBuf.readVarLong();
+                int run = cellBuf.readVarInt();
+                for (int r = 0; r < run; r++, index++, c++) {
+                    int y = (int) (index / layer);
+                    int z = (int) (index % layer / sizeX);
+                    int x = (int) (index % sizeX);
+                    BlockPos pos = base.offset(minX + x, minY + y, minZ + z);
+                    tree.addComponent(pos, palette.get(stateColumn.get(c)), TYPES[typeColumn.get(c)]);
+                }
+            }
+            return tree;
+        }
+    }
+
+    private static final class Cell {
+        final TreeComponentType type;
+        final int paletteId;
+
+        Cell(TreeComponentType type, int paletteId) {
+            this.type = type;
+            this.paletteId = paletteId;
+        }
+    }
+}
@@ -1,20 +1,80 @@
 package com.treecraft.core.detection;
 
 import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.api.events.TreeBlocksDetectedEvent;
 import com.treecraft.core.api.events.TreeCraftEvents;
+import com.treecraft.core.api.events.TreeDetectedEvent;
 import com.treecraft.core.api.events.TreeStructureDetectedEvent;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.material.Fluids;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 public class TreeStructureDetector {
 
     public static TreeStructure detectTree(BlockPos startPos, Level level) {
-        BlockPos basePos = findTreeBase(startPos, level);
+        Detection detection = scan(startPos, level, hasBlockListeners());
+        detection.publish(level);
+        return detection.tree;
+    }
+
+    /**
+     * Detect a tree without loading chunks. Nothing is posted or indexed for a tree that
+     * reaches into a chunk that is not loaded.
+     *
+     * @return the tree, or null if it reaches into a chunk that is not loaded
+     */
+    @Nullable
+    public static TreeStructure detectLoadedTree(BlockPos startPos, ServerLevel level) {
+        LoadedChunkGetter blocks = new LoadedChunkGetter(level);
+        Detection detection = scan(startPos, blocks, hasBlockListeners());
+        if (blocks.reachedUnloaded) {
+            return null;
+        }
+        detection.publish(level);
+        return detection.tree;
+    }
+
+    /**
+     * Find and classify the blocks of a tree without posting events or touching the index
+     *
+     * @param recordBlocks keep every classification so {@link Detection#publish} can post block events
+     */
+    static Detection scan(BlockPos startPos, BlockGetter blocks, boolean recordBlocks) {
+        BlockPos basePos = findTreeBase(startPos, blocks);
+        TreeBlocksDetectedEvent.Builder record = recordBlocks ? new TreeBlocksDetectedEvent.Builder() : null;
+
+        TreeStructure tree = null;
+        if (com.treecraft.core.config.CoreConfig.enableTemplateMatching) {
+            tree = TemplateMatcher.match(basePos, blocks);
+            if (tree != null && record != null) {
+                recordTemplateBlocks(tree, record);
+            }
+        }
+        if (tree == null) {
+            tree = floodFill(basePos, blocks, record);
+        }
+
+        return new Detection(startPos.immutable(), tree, record);
+    }
+
+    private static boolean hasBlockListeners() {
+        return TreeCraftEvents.hasTreeDetectedListeners() || TreeCraftEvents.hasTreeBlocksDetectedListeners();
+    }
 
+    private static TreeStructure floodFill(BlockPos basePos, BlockGetter blocks, @Nullable TreeBlocksDetectedEvent.Builder record) {
         TreeStructure tree = new TreeStructure(basePos);
 
         Queue<BlockPos> toProcess = new LinkedList<>();
@@ -30,22 +90,31 @@ public class TreeStructureDetector {
             BlockPos pos = toProcess.poll();
             blocksProcessed++;
 
-            BlockState blockState = level.getBlockState(pos);
-            TreeComponentType type = TreeBlockDetector.getInstance().detect(blockState, level, pos);
+            BlockState blockState = blocks.getBlockState(pos);
+            TreeBlockDetector.DetectionResult result = TreeBlockDetector.getInstance().classify(blockState, blocks, pos);
+            TreeComponentType type = result.type;
 
             if (type != TreeComponentType.UNKNOWN) {
                 tree.addComponent(pos, blockState, type);
                 addConnectedBlocks(pos, type, toProcess, visited);
-            }
-        }
 
-        if (tree.isReasonableSize()) {
-            TreeCraftEvents.post(new TreeStructureDetectedEvent(tree, level, startPos));
+                if (record != null) {
+                    record.add(pos, blockState, type, result.confidence);
+                }
+            }
         }
 
         return tree;
     }
 
+    private static void recordTemplateBlocks(TreeStructure tree, TreeBlocksDetectedEvent.Builder record) {
+        for (TreeComponentType type : TreeComponentType.values()) {
+            for (BlockPos pos : tree.getComponentsOfType(type)) {
+                record.add(pos, tree.getBlockAt(pos).orElse(null), type, 1.0f);
+            }
+        }
+    }
+
     private static void addConnectedBlocks(
         BlockPos pos,
         TreeComponentType type,
@@ -77,7 +146,7 @@ public class TreeStructureDetector {
         }
     }
 
-    public static BlockPos findTreeBase(BlockPos startPos, Level level) {
+    public static BlockPos findTreeBase(BlockPos startPos, BlockGetter level) {
         BlockPos current = startPos;
         BlockPos lowest = startPos;
 
@@ -87,7 +156,7 @@ public class TreeStructureDetector {
 
             BlockState state = level.getBlockState(below);
 
-            TreeComponentType type = TreeBlockDetector.getInstance().detect(state, level, below);
+            TreeComponentType type = TreeBlockDetector.getInstance().classify(state, level, below).type;
 
             if (type == TreeComponentType.TRUNK || type == TreeComponentType.ROOT) {
                 lowest = below;
@@ -99,4 +168,108 @@ public class TreeStructureDetector {
 
         return lowest;
     }
-}
\ No newline at end of file
+
+    /**
+     * Result of a detection pass. Events and indexing happen in {@link #publish}, on the
+     * server thread, separately from the scan that produced it.
+     */
+    static final class Detection {
+        final BlockPos startPos;
+        final TreeStructure tree;
+        @Nullable
+        private final TreeBlocksDetectedEvent.Builder blocks;
+
+        Detection(BlockPos startPos, TreeStructure tree, @Nullable TreeBlocksDetectedEvent.Builder blocks) {
+            this.startPos = startPos;
+            this.tree = tree;
+            this.blocks = blocks;
+        }
+
+        /**
+         * Post the detection events and index the tree
+         */
+        void publish(Level level) {
+            if (blocks != null) {
+                TreeBlocksDetectedEvent batch = blocks.build(level, startPos);
+                if (TreeCraftEvents.hasTreeDetectedListeners()) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        TreeComponentType type = batch.getDetectedType(i);
+                        if (TreeCraftEvents.hasTreeDetectedListeners(type)) {
+                            TreeCraftEvents.post(new TreeDetectedEvent(batch.getBlock(i), batch.getPos(i), level, type, batch.getConfidence(i)));
+                        }
+                    }
+                }
+                if (TreeCraftEvents.hasTreeBlocksDetectedListeners()) {
+                    TreeCraftEvents.post(batch);
+                }
+            }
+
+            if (tree.isReasonableSize()) {
+                if (com.treecraft.core.config.CoreConfig.indexDetectedTrees) {
+                    TreeSpatialIndex.forLevel(level).put(tree);
+                }
+                if (TreeCraftEvents.hasStructureDetectedListeners()) {
+                    TreeCraftEvents.post(new TreeStructureDetectedEvent(tree, level, startPos));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads loaded chunks only, and remembers whether anything outside them was asked for
+     */
+    private static final class LoadedChunkGetter implements BlockGetter {
+        private final ServerLevel level;
+        private long lastChunkKey = Long.MAX_VALUE;
+        private LevelChunk lastChunk;
+        boolean reachedUnloaded;
+
+        LoadedChunkGetter(ServerLevel level) {
+            this.level = level;
+        }
+
+        @Nullable
+        private LevelChunk chunkAt(BlockPos pos) {
+            int chunkX = SectionPos.blockToSectionCoord(pos.getX());
+            int chunkZ = SectionPos.blockToSectionCoord(pos.getZ());
+            long key = ChunkPos.asLong(chunkX, chunkZ);
+            if (key != lastChunkKey) {
+                lastChunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+                lastChunkKey = key;
+            }
+            if (lastChunk == null) {
+                reachedUnloaded = true;
+            }
+            return lastChunk;
+        }
+
+        @Override
+        public BlockState getBlockState(BlockPos pos) {
+            LevelChunk chunk = chunkAt(pos);
+            return chunk != null ? chunk.getBlockState(pos) : Blocks.AIR.defaultBlockState();
+        }
+
+        @Override
+        public FluidState getFluidState(BlockPos pos) {
+            LevelChunk chunk = chunkAt(pos);
+            return chunk != null ? chunk.getFluidState(pos) : Fluids.EMPTY.defaultFluidState();
+        }
+
+        @Nullable
+        @Override
+        public BlockEntity getBlockEntity(BlockPos pos) {
+            LevelChunk chunk = chunkAt(pos);
+            return chunk != null ? chunk.getBlockEntity(pos) : null;
+        }
+
+        @Override
+        public int getHeight() {
+            return level.getHeight();
+        }
+
+        @Override
+        public int getMinBuildHeight() {
+            return level.getMinBuildHeight();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.treecraft.core.detection;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+
+/**
+ * Shape template for a straight-trunk tree: a single log column within a height range,
+ * topped by a canopy of one leaf block inside a box around the trunk top.
+ */
+public class TreeTemplate {
+    private final ResourceLocation id;
+    private final Block log;
+    private final Block leaves;
+    private final int minTrunkHeight;
+    private final int maxTrunkHeight;
+    private final int canopyRadius;
+    private final int canopyBelowTop;
+    private final int canopyAboveTop;
+    private final int minLeaves;
+
+    private TreeTemplate(Builder builder) {
+        this.id = builder.id;
+        this.log = builder.log;
+        this.leaves = builder.leaves;
+        this.minTrunkHeight = builder.minTrunkHeight;
+        this.maxTrunkHeight = builder.maxTrunkHeight;
+        this.canopyRadius = builder.canopyRadius;
+        this.canopyBelowTop = builder.canopyBelowTop;
+        this.canopyAboveTop = builder.canopyAboveTop;
+        this.minLeaves = builder.minLeaves;
+    }
+
+    public ResourceLocation getId() { return id; }
+    public Block getLog() { return log; }
+    public Block getLeaves() { return leaves; }
+    public int getMinTrunkHeight() { return minTrunkHeight; }
+    public int getMaxTrunkHeight() { return maxTrunkHeight; }
+    public int getCanopyRadius() { return canopyRadius; }
+    public int getCanopyBelowTop() { return canopyBelowTop; }
+    public int getCanopyAboveTop() { return canopyAboveTop; }
+    public int getMinLeaves() { return minLeaves; }
+
+    public static class Builder {
+        private ResourceLocation id;
+        private Block log;
+        private Block leaves;
+        private int minTrunkHeight = 1;
+        private int maxTrunkHeight = 32;
+        private int canopyRadius = 2;
+        private int canopyBelowTop = 2;
+        private int canopyAboveTop = 1;
+        private int minLeaves = 1;
+
+        public Builder id(ResourceLocation id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder blocks(Block log, Block leaves) {
+            this.log = log;
+            this.leaves = leaves;
+            return this;
+        }
+
+        public Builder trunkHeight(int min, int max) {
+            this.minTrunkHeight = min;
+            this.maxTrunkHeight = max;
+            return this;
+        }
+
+        /**
+         * Canopy box: {@code radius} blocks around the trunk, from {@code belowTop} layers
+         * below the top log (inclusive) to {@code aboveTop} layers above it
+         */
+        public Builder canopy(int radius, int belowTop, int aboveTop) {
+            this.canopyRadius = radius;
+            this.canopyBelowTop = belowTop;
+            this.canopyAboveTop = aboveTop;
+            return this;
+        }
+
+        public Builder minLeaves(int minLeaves) {
+            this.minLeaves = minLeaves;
+            return this;
+        }
+
+        public TreeTemplate build() {
+            if (id == null || log == null || leaves == null) {
+                throw new IllegalStateException("ID, log and leaves are required for TreeTemplate");
+            }
+            return new TreeTemplate(this);
+        }
+    }
+}
@@ -11,18 +11,29 @@ import net.minecraft.world.level.block.state.BlockState;
 import javax.annotation.Nullable;
 
 public class MaterialHeuristic implements IDetectionHeuristic {
-    @Override
-    public HeuristicResult evaluate(BlockState block, @Nullable BlockGetter level, @Nullable BlockPos pos) {
-        SoundType sound = block.getSoundType();
+    /**
+     * Coarse grouping of sound types used for classification and style similarity
+     */
+    public enum SoundFamily {
+        WOOD, FOLIAGE, OTHER
+    }
 
+    public static SoundFamily familyOf(SoundType sound) {
         if (sound == SoundType.WOOD || sound == SoundType.NETHER_WOOD || sound == SoundType.BAMBOO_WOOD) {
-            return new HeuristicResult(TreeComponentType.TRUNK, 0.4f);
+            return SoundFamily.WOOD;
         }
-
         if (sound == SoundType.GRASS || sound == SoundType.VINE || sound == SoundType.CHERRY_LEAVES || sound == SoundType.AZALEA_LEAVES) {
-            return new HeuristicResult(TreeComponentType.LEAVES, 0.4f);
+            return SoundFamily.FOLIAGE;
         }
+        return SoundFamily.OTHER;
+    }
 
-        return new HeuristicResult(TreeComponentType.UNKNOWN, 0.0f);
+    @Override
+    public HeuristicResult evaluate(BlockState block, @Nullable BlockGetter level, @Nullable BlockPos pos) {
+        return switch (familyOf(block.getSoundType())) {
+            case WOOD -> new HeuristicResult(TreeComponentType.TRUNK, 0.4f);
+            case FOLIAGE -> new HeuristicResult(TreeComponentType.LEAVES, 0.4f);
+            default -> new HeuristicResult(TreeComponentType.UNKNOWN, 0.0f);
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,32 @@
+package com.treecraft.core.mixin;
+
+import com.treecraft.core.detection.AsyncTreeDetector;
+import com.treecraft.core.detection.TreeSpatialIndex;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(LevelChunk.class)
+public class MixinLevelChunk {
+
+    @Shadow
+    @Final
+    Level level;
+
+    @Inject(at = @At("RETURN"), method = "setBlockState")
+    private void onSetBlockState(BlockPos pos, BlockState state, boolean isMoving, CallbackInfoReturnable<BlockState> info) {
+        BlockState previous = info.getReturnValue();
+        // Null means nothing changed
+        if (previous != null && !level.isClientSide) {
+            TreeSpatialIndex.onBlockChanged(level, pos, previous, state);
+            AsyncTreeDetector.getInstance().onBlockChanged(level, pos, previous, state);
+        }
+    }
+}
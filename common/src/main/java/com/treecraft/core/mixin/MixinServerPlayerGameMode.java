@@ -0,0 +1,27 @@
+package com.treecraft.core.mixin;
+
+import com.treecraft.core.detection.AsyncTreeDetector;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.network.protocol.game.ServerboundPlayerActionPacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayerGameMode;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerPlayerGameMode.class)
+public class MixinServerPlayerGameMode {
+
+    @Shadow
+    protected ServerLevel level;
+
+    @Inject(at = @At("HEAD"), method = "handleBlockBreakAction")
+    private void onBlockBreakAction(BlockPos pos, ServerboundPlayerActionPacket.Action action, Direction face, int maxBuildHeight, int sequence, CallbackInfo info) {
+        if (action == ServerboundPlayerActionPacket.Action.START_DESTROY_BLOCK) {
+            AsyncTreeDetector.getInstance().speculate(pos, level);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.treecraft.core.mutation;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.detection.TreeStructure;
+import it.unimi.dsi.fastutil.objects.Reference2ReferenceOpenHashMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Component-aware block remap from one {@link BlockStyle} to another.
+ * <p>
+ * Each palette entry of the source style maps to the entry with the same index in the target
+ * style's palette for the same component, wrapping around when the target palette is shorter.
+ * Block state properties shared by both blocks, such as log axis or leaf distance, are carried
+ * over. Blocks that are not in the source palette are left untouched. Remapped states are
+ * cached, so restyling many trees only resolves each distinct state once.
+ */
+public class StyleRemap {
+    private final Map<TreeComponentType, Map<Block, Block>> blocks = new EnumMap<>(TreeComponentType.class);
+    private final Map<TreeComponentType, Map<BlockState, BlockState>> cache = new EnumMap<>(TreeComponentType.class);
+
+    private StyleRemap(BlockStyle from, BlockStyle to) {
+        for (Map.Entry<TreeComponentType, List<BlockState>> entry : from.getBlockPalette().entrySet()) {
+            List<BlockState> targets = to.getBlockPalette().get(entry.getKey());
+            if (targets == null || targets.isEmpty()) continue;
+
+            Map<Block, Block> mapping = new Reference2ReferenceOpenHashMap<>();
+            List<BlockState> sources = entry.getValue();
+            for (int i = 0; i < sources.size(); i++) {
+                mapping.putIfAbsent(sources.get(i).getBlock(), targets.get(i % targets.size()).getBlock());
+            }
+            blocks.put(entry.getKey(), mapping);
+            cache.put(entry.getKey(), new Reference2ReferenceOpenHashMap<>());
+        }
+    }
+
+    /**
+     * Compute the remap between two styles
+     */
+    public static StyleRemap between(BlockStyle from, BlockStyle to) {
+        return new StyleRemap(from, to);
+    }
+
+    /**
+     * Get the state a block of a component should become
+     *
+     * @return the remapped state, or null if the block is not part of the source style
+     */
+    @Nullable
+    public BlockState remap(TreeComponentType type, BlockState state) {
+        Map<Block, Block> mapping = blocks.get(type);
+        if (mapping == null) {
+            return null;
+        }
+        Block target = mapping.get(state.getBlock());
+        if (target == null) {
+            return null;
+        }
+        return cache.get(type).computeIfAbsent(state, k -> copyProperties(state, target.defaultBlockState()));
+    }
+
+    /**
+     * Restyle a tree with section-batched writes
+     */
+    public TreeMutator.Result apply(ServerLevel level, TreeStructure tree) {
+        return TreeMutator.replace(level, tree, this::remap);
+    }
+
+    /**
+     * Restyle several trees in one batch, such as every tree of a style in a forest. Sections
+     * whose blocks of a state all belong to the restyled trees are rewritten by swapping their
+     * palette entry; the rest fall back to batched block writes.
+     */
+    public TreeMutator.Result apply(ServerLevel level, Collection<TreeStructure> trees) {
+        return TreeMutator.replaceAll(level, trees, this::remap);
+    }
+
+    private static BlockState copyProperties(BlockState source, BlockState target) {
+        for (Property<?> property : source.getProperties()) {
+            Property<?> targetProperty = target.getBlock().getStateDefinition().getProperty(property.getName());
+            if (targetProperty != null) {
+                target = copyValue(valueName(source, property), target, targetProperty);
+            }
+        }
+        return target;
+    }
+
+    private static <T extends Comparable<T>> String valueName(BlockState state, Property<T> property) {
+        return property.getName(state.getValue(property));
+    }
+
+    private static <T extends Comparable<T>> BlockState copyValue(String value, BlockState target, Property<T> property) {
+        return property.getValue(value).map(v -> target.setValue(property, v)).orElse(target);
+    }
+}
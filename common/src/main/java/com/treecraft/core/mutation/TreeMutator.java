@@ -0,0 +1,500 @@
+package com.treecraft.core.mutation;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.detection.AsyncTreeDetector;
+import com.treecraft.core.detection.TreeSpatialIndex;
+import com.treecraft.core.detection.TreeStructure;
+import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceSet;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import it.unimi.dsi.fastutil.shorts.ShortSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.game.ClientboundSectionBlocksUpdatePacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.level.ThreadedLevelLightEngine;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.GlobalPalette;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.Palette;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.lighting.LightEngine;
+import net.minecraft.world.level.lighting.LightEventListener;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.LongFunction;
+
+/**
+ * Applies whole-tree edits with section-batched writes.
+ * <p>
+ * Instead of one {@code Level.setBlock} per block, writes are grouped by chunk section and
+ * stored directly into the section palette. Neighbour and shape updates are only sent across
+ * the boundary of the edited set, never between blocks of the same edit, and every touched
+ * section is sent to tracking players as a single section update packet. When every block of
+ * one state in a section becomes the same new state, the section palette entry is swapped
+ * instead of writing the blocks. Blocks whose light
+ * properties changed are checked by one light engine task per chunk column. Blocks with block
+ * entities fall back to a regular {@code setBlock}. Only loaded chunks are written; writes to
+ * unloaded ones are skipped. Must be called on the server thread.
+ */
+public class TreeMutator {
+    private static final Heightmap.Types[] HEIGHTMAPS = {
+        Heightmap.Types.MOTION_BLOCKING,
+        Heightmap.Types.MOTION_BLOCKING_NO_LEAVES,
+        Heightmap.Types.OCEAN_FLOOR,
+        Heightmap.Types.WORLD_SURFACE
+    };
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Remove every block of a tree
+     */
+    public static Result remove(ServerLevel level, TreeStructure tree) {
+        Result result = apply(level, planRemove(tree), true);
+        TreeSpatialIndex.forLevel(level).remove(tree);
+        return result;
+    }
+
+    /**
+     * Replace the blocks of a tree. The mapper receives the component type and the state
+     * recorded in the tree and returns the new state, or null to leave the block unchanged.
+     */
+    public static Result replace(ServerLevel level, TreeStructure tree,
+                                 BiFunction<TreeComponentType, BlockState, BlockState> mapper) {
+        TreeStructure replaced = new TreeStructure(tree.getBasePos());
+        Result result = apply(level, planReplace(tree, mapper, replaced), true);
+        return reindex(level, tree, replaced, result);
+    }
+
+    /**
+     * Replace the blocks of several trees in one batch, so sections shared by trees are
+     * written and sent once
+     *
+     * @return the combined result; its tree is null
+     */
+    public static Result replaceAll(ServerLevel level, Collection<TreeStructure> trees,
+                                    BiFunction<TreeComponentType, BlockState, BlockState> mapper) {
+        Long2ObjectMap<BlockState> writes = new Long2ObjectLinkedOpenHashMap<>();
+        Map<TreeStructure, TreeStructure> replaced = new LinkedHashMap<>(trees.size() * 2);
+        for (TreeStructure tree : trees) {
+            TreeStructure updated = new TreeStructure(tree.getBasePos());
+            writes.putAll(planReplace(tree, mapper, updated));
+            replaced.put(tree, updated);
+        }
+
+        Result result = apply(level, writes, true);
+        replaced.forEach((tree, updated) -> reindex(level, tree, updated, result));
+        return result;
+    }
+
+    /**
+     * Move a tree by an offset, clearing the positions it no longer occupies.
+     * <p>
+     * The move is refused as a whole, leaving the tree in place, if any target outside the
+     * tree's current footprint is in an unloaded chunk, holds a block entity, or is neither air
+     * nor replaceable. The result then counts those targets as skipped.
+     */
+    public static Result shift(ServerLevel level, TreeStructure tree, int dx, int dy, int dz) {
+        LongList blocked = findBlockedTargets(tree, dx, dy, dz, packed -> getLoadedState(level, packed));
+        if (!blocked.isEmpty()) {
+            return new Result(0, 0, blocked.size(), tree);
+        }
+
+        TreeStructure shifted = new TreeStructure(tree.getBasePos().offset(dx, dy, dz));
+        Result result = apply(level, planShift(tree, dx, dy, dz, shifted), true);
+        return reindex(level, tree, shifted, result);
+    }
+
+    private static Result reindex(ServerLevel level, TreeStructure previous, TreeStructure updated, Result result) {
+        TreeSpatialIndex index = TreeSpatialIndex.forLevel(level);
+        if (index.remove(previous) || com.treecraft.core.config.CoreConfig.indexDetectedTrees) {
+            index.put(updated);
+        }
+        return new Result(result.changedBlocks, result.sections, result.skippedBlocks, updated);
+    }
+
+    @Nullable
+    private static BlockState getLoadedState(ServerLevel level, long packed) {
+        LevelChunk chunk = level.getChunkSource().getChunkNow(
+            SectionPos.blockToSectionCoord(BlockPos.getX(packed)),
+            SectionPos.blockToSectionCoord(BlockPos.getZ(packed)));
+        return chunk != null ? chunk.getBlockState(BlockPos.of(packed)) : null;
+    }
+
+    /**
+     * Find the shift targets outside the tree's footprint that may not be overwritten
+     *
+     * @param stateAt the state at a packed position, or null if its chunk is not loaded
+     */
+    static LongList findBlockedTargets(TreeStructure tree, int dx, int dy, int dz, LongFunction<BlockState> stateAt) {
+        LongList blocked = new LongArrayList();
+        tree.forEachPosition(packed -> {
+            long target = BlockPos.offset(packed, dx, dy, dz);
+            if (tree.containsPosition(BlockPos.of(target))) return;
+
+            BlockState state = stateAt.apply(target);
+            if (state == null || state.hasBlockEntity() || !(state.isAir() || state.canBeReplaced())) {
+                blocked.add(target);
+            }
+        });
+        return blocked;
+    }
+
+    static Long2ObjectMap<BlockState> planRemove(TreeStructure tree) {
+        Long2ObjectMap<BlockState> writes = new Long2ObjectLinkedOpenHashMap<>(tree.getTotalBlocks());
+        BlockState air = Blocks.AIR.defaultBlockState();
+        tree.forEachPosition(pos -> writes.put(pos, air));
+        return writes;
+    }
+
+    static Long2ObjectMap<BlockState> planReplace(TreeStructure tree,
+                                                  BiFunction<TreeComponentType, BlockState, BlockState> mapper,
+                                                  TreeStructure replaced) {
+        Long2ObjectMap<BlockState> writes = new Long2ObjectLinkedOpenHashMap<>(tree.getTotalBlocks());
+        tree.forEachBlock((pos, state, type) -> {
+            BlockState mapped = mapper.apply(type, state);
+            if (mapped != null && mapped != state) {
+                writes.put(pos.asLong(), mapped);
+                state = mapped;
+            }
+            replaced.addComponent(pos, state, type);
+        });
+        return writes;
+    }
+
+    static Long2ObjectMap<BlockState> planShift(TreeStructure tree, int dx, int dy, int dz, TreeStructure shifted) {
+        Long2ObjectMap<BlockState> writes = new Long2ObjectLinkedOpenHashMap<>(tree.getTotalBlocks() * 2);
+        BlockState air = Blocks.AIR.defaultBlockState();
+        tree.forEachPosition(pos -> writes.put(pos, air));
+        // Targets overwrite the cleared sources wherever the old and new footprint overlap
+        tree.forEachBlock((pos, state, type) -> {
+            BlockPos target = pos.offset(dx, dy, dz);
+            writes.put(target.asLong(), state);
+            shifted.addComponent(target, state, type);
+        });
+        return writes;
+    }
+
+    /**
+     * Write a set of block states keyed by packed position
+     *
+     * @param updateNeighbors whether to send neighbour and shape updates across the boundary
+     *                        of the written set
+     */
+    public static Result apply(ServerLevel level, Long2ObjectMap<BlockState> writes, boolean updateNeighbors) {
+        Long2ObjectMap<LongList> bySection = groupBySection(writes.keySet());
+        ThreadedLevelLightEngine lightEngine = level.getChunkSource().getLightEngine();
+        Long2ObjectMap<LongList> lightChecks = new Long2ObjectLinkedOpenHashMap<>();
+        LongList changed = new LongArrayList(writes.size());
+        LongList fallback = new LongArrayList();
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int sections = 0;
+        int skipped = 0;
+
+        for (Long2ObjectMap.Entry<LongList> entry : bySection.long2ObjectEntrySet()) {
+            SectionPos sectionPos = SectionPos.of(entry.getLongKey());
+            // Never load or generate chunks for an edit
+            LevelChunk chunk = level.getChunkSource().getChunkNow(sectionPos.x(), sectionPos.z());
+            if (chunk == null) {
+                skipped += entry.getValue().size();
+                continue;
+            }
+            int sectionIndex = chunk.getSectionIndexFromSectionY(sectionPos.y());
+            if (sectionIndex < 0 || sectionIndex >= chunk.getSectionsCount()) {
+                skipped += entry.getValue().size();
+                continue;
+            }
+
+            LevelChunkSection section = chunk.getSection(sectionIndex);
+            boolean wasEmpty = section.hasOnlyAir();
+
+            ShortSet positions = new ShortOpenHashSet();
+            writeSection(section, writes, entry.getValue(), fallback, (packed, previous, state) -> {
+                pos.set(packed);
+                for (Heightmap.Types type : HEIGHTMAPS) {
+                    chunk.getOrCreateHeightmapUnprimed(type).update(pos.getX() & 15, pos.getY(), pos.getZ() & 15, state);
+                }
+                if (LightEngine.hasDifferentLightProperties(chunk, pos, previous, state)) {
+                    lightChecks.computeIfAbsent(ChunkPos.asLong(sectionPos.x(), sectionPos.z()), k -> new LongArrayList()).add(packed);
+                }
+                // Direct section writes bypass LevelChunk.setBlockState and its change hooks
+                TreeSpatialIndex.onBlockChanged(level, pos, previous, state);
+                AsyncTreeDetector.getInstance().onBlockChanged(level, pos, previous, state);
+                positions.add(SectionPos.sectionRelativePos(pos));
+                changed.add(packed);
+            });
+
+            if (positions.isEmpty()) continue;
+            sections++;
+            chunk.setUnsaved(true);
+            if (wasEmpty != section.hasOnlyAir()) {
+                lightEngine.updateSectionStatus(sectionPos, section.hasOnlyAir());
+            }
+
+            ClientboundSectionBlocksUpdatePacket packet = new ClientboundSectionBlocksUpdatePacket(sectionPos, positions, section);
+            for (ServerPlayer player : level.getChunkSource().chunkMap.getPlayers(new ChunkPos(sectionPos.x(), sectionPos.z()), false)) {
+                player.connection.send(packet);
+            }
+        }
+
+        for (Long2ObjectMap.Entry<LongList> entry : lightChecks.long2ObjectEntrySet()) {
+            queueLightChecks(lightEngine, entry.getLongKey(), entry.getValue());
+        }
+
+        // Block entities need the full setBlock path; skip shape updates as for batched writes
+        for (LongIterator it = fallback.iterator(); it.hasNext(); ) {
+            long packed = it.nextLong();
+            if (level.setBlock(pos.set(packed), writes.get(packed), Block.UPDATE_CLIENTS | Block.UPDATE_KNOWN_SHAPE)) {
+                changed.add(packed);
+            }
+        }
+
+        if (updateNeighbors) {
+            updateBoundary(level, writes, changed);
+        }
+        return new Result(changed.size(), sections, skipped, null);
+    }
+
+    /**
+     * Write the changes of one section, swapping palette entries where a whole state changes
+     * uniformly. Positions whose old or new state has a block entity are added to
+     * {@code fallback} instead.
+     */
+    static void writeSection(LevelChunkSection section, Long2ObjectMap<BlockState> writes, LongList sectionPositions,
+                             LongList fallback, SectionWriteListener listener) {
+        // Group the changes of the section by the state they replace
+        Reference2ObjectMap<BlockState, LongList> byPrevious = new Reference2ObjectLinkedOpenHashMap<>();
+        for (LongIterator it = sectionPositions.iterator(); it.hasNext(); ) {
+            long packed = it.nextLong();
+            BlockState state = writes.get(packed);
+            BlockState previous = section.getBlockState(
+                BlockPos.getX(packed) & 15, BlockPos.getY(packed) & 15, BlockPos.getZ(packed) & 15);
+            if (previous == state) continue;
+            if (previous.hasBlockEntity() || state.hasBlockEntity()) {
+                fallback.add(packed);
+                continue;
+            }
+            byPrevious.computeIfAbsent(previous, k -> new LongArrayList()).add(packed);
+        }
+
+        // Counts taken before any write stay exact for every state this batch has not written
+        Reference2IntMap<BlockState> counts = null;
+        ReferenceSet<BlockState> written = new ReferenceOpenHashSet<>();
+        boolean paletteRewritten = false;
+        for (Reference2ObjectMap.Entry<BlockState, LongList> group : byPrevious.reference2ObjectEntrySet()) {
+            BlockState previous = group.getKey();
+            LongList groupPositions = group.getValue();
+
+            // Every block of this state in the section becomes the same state: swap the palette
+            // entry, unless cells written by this batch (e.g. A to B before B to C) hold it too
+            BlockState target = uniformTarget(writes, groupPositions);
+            boolean rewritten = false;
+            if (target != null && !written.contains(previous)) {
+                if (counts == null) counts = countStates(section);
+                rewritten = counts.getInt(previous) == groupPositions.size()
+                    && rewritePaletteEntry(section.getStates(), previous, target);
+                paletteRewritten |= rewritten;
+            }
+
+            for (LongIterator it = groupPositions.iterator(); it.hasNext(); ) {
+                long packed = it.nextLong();
+                BlockState state = writes.get(packed);
+                if (!rewritten) {
+                    section.setBlockState(BlockPos.getX(packed) & 15, BlockPos.getY(packed) & 15, BlockPos.getZ(packed) & 15, state);
+                }
+                written.add(state);
+                listener.written(packed, previous, state);
+            }
+        }
+        if (paletteRewritten) {
+            section.recalcBlockCounts();
+        }
+    }
+
+    /**
+     * Receives every block written by {@link #writeSection}
+     */
+    @FunctionalInterface
+    interface SectionWriteListener {
+        void written(long packed, BlockState previous, BlockState state);
+    }
+
+    /**
+     * @return the state all positions are written with, or null if they differ
+     */
+    @Nullable
+    private static BlockState uniformTarget(Long2ObjectMap<BlockState> writes, LongList positions) {
+        BlockState target = writes.get(positions.getLong(0));
+        for (int i = 1; i < positions.size(); i++) {
+            if (writes.get(positions.getLong(i)) != target) {
+                return null;
+            }
+        }
+        return target;
+    }
+
+    private static Reference2IntMap<BlockState> countStates(LevelChunkSection section) {
+        Reference2IntMap<BlockState> counts = new Reference2IntOpenHashMap<>();
+        section.getStates().count((state, count) -> counts.mergeInt(state, count, Integer::sum));
+        return counts;
+    }
+
+    /**
+     * Replace one palette entry of a container in place, so every cell holding {@code from}
+     * reads as {@code to} without touching the packed cell data
+     *
+     * @return false if the palette cannot be rewritten: it is the global palette, does not hold
+     * {@code from}, or already holds {@code to}
+     */
+    static boolean rewritePaletteEntry(PalettedContainer<BlockState> states, BlockState from, BlockState to) {
+        states.acquire();
+        try {
+            PalettedContainer.Data<BlockState> data = states.data;
+            Palette<BlockState> palette = data.palette();
+            if (palette instanceof GlobalPalette || palette.maybeHas(state -> state == to)) {
+                return false;
+            }
+
+            List<BlockState> entries = new ArrayList<>(palette.getSize());
+            boolean found = false;
+            for (int id = 0; id < palette.getSize(); id++) {
+                BlockState entry = palette.valueFor(id);
+                if (entry == from) {
+                    entry = to;
+                    found = true;
+                }
+                entries.add(entry);
+            }
+            if (!found) {
+                return false;
+            }
+
+            // Palettes built from a list assign ids in list order, so the cell data stays valid
+            PalettedContainer.Configuration<BlockState> configuration = data.configuration();
+            Palette<BlockState> rewritten = configuration.factory().create(configuration.bits(), states.registry, states, entries);
+            states.data = new PalettedContainer.Data<>(configuration, data.storage(), rewritten);
+            return true;
+        } finally {
+            states.release();
+        }
+    }
+
+    /**
+     * Queue the light checks of one chunk column as a single light engine task, instead of
+     * one task per block as {@link ThreadedLevelLightEngine#checkBlock} does
+     */
+    private static void queueLightChecks(ThreadedLevelLightEngine lightEngine, long chunkPos, LongList positions) {
+        LightEventListener blockLight = lightEngine.getLayerListener(LightLayer.BLOCK);
+        LightEventListener skyLight = lightEngine.getLayerListener(LightLayer.SKY);
+        lightEngine.addTask(ChunkPos.getX(chunkPos), ChunkPos.getZ(chunkPos), ThreadedLevelLightEngine.TaskType.PRE_UPDATE, () -> {
+            BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+            for (LongIterator it = positions.iterator(); it.hasNext(); ) {
+                pos.set(it.nextLong());
+                blockLight.checkBlock(pos);
+                skyLight.checkBlock(pos);
+            }
+        });
+    }
+
+    /**
+     * Send shape and neighbour updates from changed blocks to neighbours outside the written set
+     */
+    private static void updateBoundary(ServerLevel level, Long2ObjectMap<BlockState> writes, LongList changed) {
+        BlockPos.MutableBlockPos neighborPos = new BlockPos.MutableBlockPos();
+        for (LongIterator it = changed.iterator(); it.hasNext(); ) {
+            long packed = it.nextLong();
+            BlockPos pos = BlockPos.of(packed);
+            BlockState state = writes.get(packed);
+            for (Direction direction : DIRECTIONS) {
+                neighborPos.setWithOffset(pos, direction);
+                if (writes.containsKey(neighborPos.asLong()) || !level.hasChunkAt(neighborPos)) continue;
+
+                BlockPos neighbor = neighborPos.immutable();
+                BlockState neighborState = level.getBlockState(neighbor);
+                BlockState updated = neighborState.updateShape(direction.getOpposite(), state, level, neighbor, pos);
+                Block.updateOrDestroy(neighborState, updated, level, neighbor, Block.UPDATE_ALL);
+                level.neighborChanged(neighbor, state.getBlock(), pos);
+            }
+        }
+    }
+
+    static Long2ObjectMap<LongList> groupBySection(LongSet positions) {
+        Long2ObjectMap<LongList> bySection = new Long2ObjectLinkedOpenHashMap<>();
+        for (LongIterator it = positions.iterator(); it.hasNext(); ) {
+            long packed = it.nextLong();
+            long section = SectionPos.asLong(
+                SectionPos.blockToSectionCoord(BlockPos.getX(packed)),
+                SectionPos.blockToSectionCoord(BlockPos.getY(packed)),
+                SectionPos.blockToSectionCoord(BlockPos.getZ(packed)));
+            bySection.computeIfAbsent(section, k -> new LongArrayList()).add(packed);
+        }
+        return bySection;
+    }
+
+    /**
+     * Outcome of a mutation
+     */
+    public static final class Result {
+        private final int changedBlocks;
+        private final int sections;
+        private final int skippedBlocks;
+        @Nullable
+        private final TreeStructure tree;
+
+        Result(int changedBlocks, int sections, int skippedBlocks, @Nullable TreeStructure tree) {
+            this.changedBlocks = changedBlocks;
+            this.sections = sections;
+            this.skippedBlocks = skippedBlocks;
+            this.tree = tree;
+        }
+
+        /**
+         * Get the number of blocks whose state changed
+         */
+        public int getChangedBlocks() {
+            return changedBlocks;
+        }
+
+        /**
+         * Get the number of chunk sections written in a batch
+         */
+        public int getSections() {
+            return sections;
+        }
+
+        /**
+         * Get the number of blocks that were not written because their chunk was not loaded,
+         * or the number of targets that refused a shift
+         */
+        public int getSkippedBlocks() {
+            return skippedBlocks;
+        }
+
+        /**
+         * Get the tree after the mutation, or null if it was removed
+         */
+        @Nullable
+        public TreeStructure getTree() {
+            return tree;
+        }
+    }
+}
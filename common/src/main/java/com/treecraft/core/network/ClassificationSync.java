@@ -0,0 +1,172 @@
+package com.treecraft.core.network;
+
+import com.treecraft.core.Constants;
+import com.treecraft.core.detection.ClassificationTable;
+import com.treecraft.core.platform.Services;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Sends the server's {@link ClassificationTable} to clients when they join.
+ * <p>
+ * The server opens with the table hash. A client that has a cached table with that hash
+ * installs it and stays silent; otherwise it requests the table, and caches what it receives.
+ * The loaders only move the payloads of {@link #CHANNEL} and call these handlers.
+ */
+public class ClassificationSync {
+    public static final ResourceLocation CHANNEL = new ResourceLocation(Constants.MOD_ID, "classification");
+
+    private static final byte HELLO = 0;
+    private static final byte REQUEST = 1;
+    private static final byte TABLE = 2;
+
+    private static Path cacheDirectory;
+
+    /**
+     * Build the server table up front so the first join does not pay for it. Always rebuilt,
+     * since block registries can differ between the servers of one game session.
+     */
+    public static void onServerStarted() {
+        if (com.treecraft.core.config.CoreConfig.syncClassificationTable) {
+            ClassificationTable.rebuildServer();
+        } else {
+            ClassificationTable.resetServer();
+        }
+    }
+
+    /**
+     * Drop the table of the stopped server
+     */
+    public static void onServerStopped() {
+        ClassificationTable.resetServer();
+    }
+
+    /**
+     * Create the payload the server sends to a joining player
+     *
+     * @return the payload, or null if syncing is disabled
+     */
+    @Nullable
+    public static FriendlyByteBuf createHello() {
+        if (!com.treecraft.core.config.CoreConfig.syncClassificationTable) {
+            return null;
+        }
+
+        ClassificationTable table = ClassificationTable.server();
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        buf.writeByte(HELLO);
+        buf.writeLong(table.getHash());
+        return buf;
+    }
+
+    /**
+     * Handle a payload received by the server. Runs on the network thread, so it only answers
+     * with a table that was already built and never builds one.
+     *
+     * @return the reply to send back, or null
+     */
+    @Nullable
+    public static FriendlyByteBuf handleServer(FriendlyByteBuf buf) {
+        if (buf.readByte() != REQUEST || !com.treecraft.core.config.CoreConfig.syncClassificationTable) {
+            return null;
+        }
+        ClassificationTable table = ClassificationTable.serverIfBuilt();
+        if (table == null) {
+            return null;
+        }
+
+        FriendlyByteBuf reply = new FriendlyByteBuf(Unpooled.buffer());
+        reply.writeByte(TABLE);
+        reply.writeByteArray(table.getEncoded());
+        return reply;
+    }
+
+    /**
+     * Handle a payload received by the client. Reads and writes the table cache, so loaders
+     * call it on the client thread rather than the network thread.
+     *
+     * @return the reply to send back, or null
+     */
+    @Nullable
+    public static FriendlyByteBuf handleClient(FriendlyByteBuf buf) {
+        byte kind = buf.readByte();
+        if (kind == HELLO) {
+            long hash = buf.readLong();
+            ClassificationTable cached = readCache(hash);
+            ClassificationTable.setClient(cached);
+            if (cached != null) {
+                return null;
+            }
+
+            FriendlyByteBuf reply = new FriendlyByteBuf(Unpooled.buffer());
+            reply.writeByte(REQUEST);
+            reply.writeLong(hash);
+            return reply;
+        }
+
+        if (kind == TABLE) {
+            try {
+                ClassificationTable table = ClassificationTable.decode(buf.readByteArray());
+                ClassificationTable.setClient(table);
+                writeCache(table);
+            } catch (IllegalArgumentException e) {
+                Constants.LOG.warn("Ignoring invalid classification table from server: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Forget the table of the server the client was connected to
+     */
+    public static void onDisconnect() {
+        ClassificationTable.setClient(null);
+    }
+
+    @Nullable
+    private static ClassificationTable readCache(long hash) {
+        Path file = cacheFile(hash);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            ClassificationTable table = ClassificationTable.decode(Files.readAllBytes(file));
+            return table.getHash() == hash ? table : null;
+        } catch (IOException | IllegalArgumentException e) {
+            Constants.LOG.warn("Ignoring unreadable classification cache {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    private static void writeCache(ClassificationTable table) {
+        Path file = cacheFile(table.getHash());
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, table.getEncoded());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Constants.LOG.warn("Failed to cache classification table {}", file, e);
+        }
+    }
+
+    private static Path cacheFile(long hash) {
+        if (cacheDirectory == null) {
+            cacheDirectory = Services.PLATFORM.getConfigDirectory().resolve("treecraft/cache/classification");
+        }
+        return cacheDirectory.resolve(String.format("%016x.bin", hash));
+    }
+
+    // Visible for testing
+    public static void resetForTest(Path cacheDir) {
+        cacheDirectory = cacheDir;
+        ClassificationTable.resetForTest();
+    }
+}
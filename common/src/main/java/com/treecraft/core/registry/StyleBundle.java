@@ -0,0 +1,201 @@
+package com.treecraft.core.registry;
+
+import com.google.common.hash.HashCode;
+import com.treecraft.core.Constants;
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.StyleMetadata;
+import com.treecraft.core.api.TreeComponentType;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Compiled binary cache of the parsed style files.
+ * <p>
+ * The bundle stores every style with blocks as raw block registry ids and palette weights,
+ * together with the content hash of the file it came from. It is only valid for the input key
+ * it was written with, which covers the style files' paths and content hashes and the block
+ * registry, so decoding can resolve ids by index without any name lookups. Bundles are read
+ * into a heap buffer, so no file mapping keeps the bundle open while it is replaced.
+ */
+final class StyleBundle {
+    private static final int MAGIC = 0x54435342; // TCSB
+    private static final int VERSION = 2;
+    private static final TreeComponentType[] TYPES = TreeComponentType.values();
+
+    private StyleBundle() {
+    }
+
+    /**
+     * Decode a bundle
+     *
+     * @return the manifest entries by path relative to the styles directory, or null if the
+     * bundle is missing, corrupt or was written for different inputs
+     */
+    @Nullable
+    static Map<String, StyleLoader.ManifestEntry> read(Path file, HashCode key) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            byte[] storedKey = new byte[key.bits() / 8];
+            buffer.get(storedKey);
+            if (!Arrays.equals(storedKey, key.asBytes())) {
+                return null;
+            }
+
+            int fileCount = readVarInt(buffer);
+            Map<String, StyleLoader.ManifestEntry> entries = new LinkedHashMap<>(fileCount * 2);
+            for (int f = 0; f < fileCount; f++) {
+                String path = readString(buffer);
+                byte[] hash = new byte[readVarInt(buffer)];
+                buffer.get(hash);
+
+                int styleCount = readVarInt(buffer);
+                List<BlockStyle> styles = new ArrayList<>(styleCount);
+                for (int s = 0; s < styleCount; s++) {
+                    styles.add(readStyle(buffer));
+                }
+                entries.put(path, new StyleLoader.ManifestEntry(HashCode.fromBytes(hash), styles));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            Constants.LOG.warn("Ignoring unreadable style bundle {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Write a bundle, replacing the previous one atomically
+     */
+    static void write(Path file, HashCode key, Map<String, StyleLoader.ManifestEntry> entries) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.write(key.asBytes());
+
+                writeVarInt(out, entries.size());
+                for (Map.Entry<String, StyleLoader.ManifestEntry> entry : entries.entrySet()) {
+                    writeString(out, entry.getKey());
+                    byte[] hash = entry.getValue().hash.asBytes();
+                    writeVarInt(out, hash.length);
+                    out.write(hash);
+
+                    writeVarInt(out, entry.getValue().styles.size());
+                    for (BlockStyle style : entry.getValue().styles) {
+                        writeStyle(out, style);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Constants.LOG.warn("Failed to write style bundle {}", file, e);
+        }
+    }
+
+    private static void writeStyle(DataOutputStream out, BlockStyle style) throws IOException {
+        writeString(out, style.getId().toString());
+        writeNullableString(out, style.getDisplayName());
+
+        StyleMetadata metadata = style.getMetadata();
+        out.writeBoolean(metadata != null);
+        if (metadata != null) {
+            writeNullableString(out, metadata.getColorScheme());
+            writeNullableString(out, metadata.getTextureStyle());
+            out.writeBoolean(metadata.hasSeasonalVariants());
+        }
+
+        Map<TreeComponentType, List<BlockState>> palette = style.getBlockPalette();
+        out.writeByte(palette.size());
+        for (Map.Entry<TreeComponentType, List<BlockState>> entry : palette.entrySet()) {
+            out.writeByte(entry.getKey().ordinal());
+            writeVarInt(out, entry.getValue().size());
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                writeVarInt(out, BuiltInRegistries.BLOCK.getId(entry.getValue().get(i).getBlock()));
+                out.writeFloat(style.getWeight(entry.getKey(), i));
+            }
+        }
+    }
+
+    private static BlockStyle readStyle(ByteBuffer buffer) {
+        BlockStyle.Builder builder = new BlockStyle.Builder()
+            .id(new ResourceLocation(readString(buffer)))
+            .displayName(readNullableString(buffer));
+
+        if (buffer.get() != 0) {
+            builder.metadata(new StyleMetadata(readNullableString(buffer), readNullableString(buffer), buffer.get() != 0));
+        }
+
+        int components = buffer.get();
+        for (int c = 0; c < components; c++) {
+            TreeComponentType type = TYPES[buffer.get()];
+            int count = readVarInt(buffer);
+            for (int i = 0; i < count; i++) {
+                Block block = BuiltInRegistries.BLOCK.byId(readVarInt(buffer));
+                builder.weighted(type, block, buffer.getFloat());
+            }
+        }
+        return builder.build();
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+            if (shift > 35) throw new IllegalStateException("VarInt too long");
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readVarInt(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(ByteBuffer buffer) {
+        return buffer.get() != 0 ? readString(buffer) : null;
+    }
+}
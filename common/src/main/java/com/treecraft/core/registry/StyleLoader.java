@@ -1,32 +1,91 @@
 package com.treecraft.core.registry;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.treecraft.core.Constants;
 import com.treecraft.core.api.BlockStyle;
 import com.treecraft.core.api.StyleMetadata;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.config.CoreConfig;
 import com.treecraft.core.platform.Services;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.GsonHelper;
 import net.minecraft.world.level.block.Block;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.Reader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Loads style JSON files from {@code config/treecraft/styles}.
+ * <p>
+ * Files are parsed in parallel on a bounded pool. A manifest of content hashes remembers what
+ * every file contributed, so a reload only parses changed files and applies all changes,
+ * including styles of deleted files, as one registry update. With {@code watchStyleFiles}
+ * enabled, a watcher thread parses files shortly after they change while a server is running;
+ * the resulting registry update is applied on the server thread at the end of the next tick,
+ * so style events are never posted from the watcher.
+ * <p>
+ * With {@code useStyleBundle} enabled, the parsed styles are also written to a binary
+ * {@link StyleBundle}; a later start with unchanged files and blocks decodes the bundle
+ * instead of parsing any JSON.
+ */
 public class StyleLoader {
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Gson GSON = new Gson();
+    private static final long RELOAD_DELAY_MS = 500;
+
+    private static final Map<Path, ManifestEntry> MANIFEST = new HashMap<>();
+    // Updates parsed by the watcher, in manifest order, waiting for the server thread
+    private static final Queue<StyleUpdate> PENDING = new ConcurrentLinkedQueue<>();
+    private static Thread watcher;
 
     public static void loadStyles() {
+        Path stylesDir = getStylesDirectory();
+        if (stylesDir == null) {
+            return;
+        }
+
+        reload(stylesDir);
+    }
+
+    /**
+     * Start the hot reload watcher if enabled. Called by the loaders once a server has started.
+     */
+    public static void onServerStarted() {
+        if (!CoreConfig.watchStyleFiles) return;
+
+        Path stylesDir = getStylesDirectory();
+        if (stylesDir != null) {
+            startWatching(stylesDir);
+        }
+    }
+
+    /**
+     * Stop the hot reload watcher and apply what it already parsed. Called by the loaders on
+     * the server thread when the server stops.
+     */
+    public static void onServerStopped() {
+        stopWatching();
+        applyPendingReloads();
+    }
+
+    @Nullable
+    private static Path getStylesDirectory() {
         Path configDir = Services.PLATFORM.getConfigDirectory();
         if (configDir == null) {
             Constants.LOG.error("Config directory is null!");
-            return;
+            return null;
         }
 
         Path stylesDir = configDir.resolve("treecraft/styles");
@@ -36,35 +95,289 @@ public class StyleLoader {
                 Files.createDirectories(stylesDir);
             } catch (IOException e) {
                 Constants.LOG.error("Failed to create styles directory", e);
-                return;
+                return null;
             }
         }
+        return stylesDir;
+    }
+
+    /**
+     * Parse new and changed style files and apply the differences to the registry
+     */
+    public static synchronized void reload(Path stylesDir) {
+        // Earlier watcher updates must reach the registry first, they are already in the manifest
+        applyPendingReloads();
+        StyleUpdate update = prepare(stylesDir);
+        if (update != null) {
+            update.apply();
+        }
+    }
 
+    /**
+     * Apply the registry updates parsed by the watcher. Called on the server thread at the end
+     * of every server tick.
+     */
+    public static void applyPendingReloads() {
+        StyleUpdate update;
+        while ((update = PENDING.poll()) != null) {
+            update.apply();
+        }
+    }
+
+    /**
+     * Parse new and changed style files and update the manifest and bundle, without touching
+     * the registry
+     *
+     * @return the registry update, or null if the files could not be listed
+     */
+    @Nullable
+    private static synchronized StyleUpdate prepare(Path stylesDir) {
+        List<Path> files;
         try (Stream<Path> paths = Files.walk(stylesDir)) {
-            paths.filter(Files::isRegularFile)
+            files = paths.filter(Files::isRegularFile)
                     .filter(p -> p.toString().endsWith(".json"))
-                    .forEach(p -> loadStyleFile(p));
+                    .collect(Collectors.toList());
         } catch (IOException e) {
             Constants.LOG.error("Failed to load styles", e);
+            return null;
+        }
+
+        HashCode bundleKey = null;
+        Map<Path, HashCode> contentHashes = new HashMap<>();
+        Path bundleFile = stylesDir.resolveSibling("cache").resolve("styles.bundle");
+        if (CoreConfig.useStyleBundle) {
+            bundleKey = computeBundleKey(stylesDir, files, contentHashes);
+            if (bundleKey != null && MANIFEST.isEmpty()) {
+                List<BlockStyle> bundled = loadBundle(stylesDir, bundleFile, bundleKey);
+                if (bundled != null) {
+                    return new StyleUpdate(bundled, List.of());
+                }
+            }
+        }
+
+        Map<Path, ManifestEntry> parsed = parseChanged(files, contentHashes);
+
+        List<BlockStyle> styles = new ArrayList<>();
+        Set<ResourceLocation> removed = new HashSet<>();
+        for (Map.Entry<Path, ManifestEntry> entry : parsed.entrySet()) {
+            ManifestEntry previous = MANIFEST.put(entry.getKey(), entry.getValue());
+            if (previous != null) {
+                removed.addAll(previous.styleIds);
+            }
+            styles.addAll(entry.getValue().styles);
+        }
+
+        Set<Path> present = new HashSet<>(files);
+        boolean filesRemoved = false;
+        Iterator<Map.Entry<Path, ManifestEntry>> it = MANIFEST.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, ManifestEntry> entry = it.next();
+            if (!present.contains(entry.getKey())) {
+                removed.addAll(entry.getValue().styleIds);
+                it.remove();
+                filesRemoved = true;
+            }
+        }
+
+        Constants.LOG.info("Loaded {} style files ({} changed)", files.size(), parsed.size());
+
+        if (bundleKey != null && (!parsed.isEmpty() || filesRemoved)) {
+            Map<String, ManifestEntry> entries = new LinkedHashMap<>();
+            MANIFEST.forEach((path, entry) -> entries.put(relativeName(stylesDir, path), entry));
+            StyleBundle.write(bundleFile, bundleKey, entries);
         }
+        return new StyleUpdate(styles, removed);
     }
 
-    private static void loadStyleFile(Path file) {
-        try (Reader reader = Files.newBufferedReader(file)) {
-            StyleDTO dto = GSON.fromJson(reader, StyleDTO.class);
-            if (dto != null && dto.id != null) {
+    /**
+     * @return the styles of a bundle matching the key, or null if there is none
+     */
+    @Nullable
+    private static List<BlockStyle> loadBundle(Path stylesDir, Path bundleFile, HashCode key) {
+        Map<String, ManifestEntry> bundled = StyleBundle.read(bundleFile, key);
+        if (bundled == null) {
+            return null;
+        }
+
+        List<BlockStyle> styles = new ArrayList<>();
+        bundled.forEach((name, entry) -> {
+            MANIFEST.put(stylesDir.resolve(name), entry);
+            styles.addAll(entry.styles);
+        });
+        Constants.LOG.info("Loaded {} style files from bundle", bundled.size());
+        return styles;
+    }
+
+    /**
+     * Hash the inputs a bundle depends on: style file paths and content hashes, and the block
+     * registry that raw block ids refer to
+     *
+     * @param contentHashes receives the content hash of every file, as stored in the manifest
+     */
+    @Nullable
+    private static HashCode computeBundleKey(Path stylesDir, List<Path> files, Map<Path, HashCode> contentHashes) {
+        List<String> names = new ArrayList<>(files.size());
+        Map<String, Path> byName = new HashMap<>();
+        for (Path file : files) {
+            String name = relativeName(stylesDir, file);
+            names.add(name);
+            byName.put(name, file);
+        }
+        Collections.sort(names);
+
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        try {
+            for (String name : names) {
+                Path file = byName.get(name);
+                HashCode hash = Hashing.murmur3_128().hashBytes(Files.readAllBytes(file));
+                contentHashes.put(file, hash);
+                hasher.putString(name, StandardCharsets.UTF_8).putBytes(hash.asBytes());
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        // Registry iteration follows raw id order
+        hasher.putInt(BuiltInRegistries.BLOCK.size());
+        for (Block block : BuiltInRegistries.BLOCK) {
+            hasher.putString(BuiltInRegistries.BLOCK.getKey(block).toString(), StandardCharsets.UTF_8);
+        }
+        return hasher.hash();
+    }
+
+    private static String relativeName(Path stylesDir, Path file) {
+        return stylesDir.relativize(file).toString().replace('\\', '/');
+    }
+
+    /**
+     * Read every file, and parse those whose content hash differs from the manifest
+     *
+     * @param contentHashes hashes already computed for the bundle key, so unchanged files are not read again
+     */
+    private static Map<Path, ManifestEntry> parseChanged(List<Path> files, Map<Path, HashCode> contentHashes) {
+        int threads = Math.max(1, Math.min(CoreConfig.styleLoaderThreads, files.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+            .setNameFormat("TreeCraft-StyleLoader-%d")
+            .setDaemon(true)
+            .build());
+
+        try {
+            Map<Path, Future<ManifestEntry>> futures = new LinkedHashMap<>();
+            for (Path file : files) {
+                ManifestEntry previous = MANIFEST.get(file);
+                if (previous != null && previous.hash.equals(contentHashes.get(file))) continue;
+                futures.put(file, executor.submit(() -> loadStyleFile(file, previous)));
+            }
+
+            Map<Path, ManifestEntry> parsed = new LinkedHashMap<>();
+            for (Map.Entry<Path, Future<ManifestEntry>> entry : futures.entrySet()) {
                 try {
-                    BlockStyle style = parseStyle(dto);
-                    StyleRegistry.register(style);
-                } catch (Exception e) {
-                    Constants.LOG.error("Failed to parse style content: " + file, e);
+                    ManifestEntry result = entry.getValue().get();
+                    if (result != null) {
+                        parsed.put(entry.getKey(), result);
+                    }
+                } catch (ExecutionException e) {
+                    Constants.LOG.error("Failed to read style file: " + entry.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
             }
-        } catch (Exception e) {
-            Constants.LOG.error("Failed to read style file: " + file, e);
+            return parsed;
+        } finally {
+            executor.shutdownNow();
         }
     }
 
+    /**
+     * @return the parsed file, or null if its content is unchanged
+     */
+    @Nullable
+    private static ManifestEntry loadStyleFile(Path file, @Nullable ManifestEntry previous) throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        HashCode hash = Hashing.murmur3_128().hashBytes(content);
+        if (previous != null && previous.hash.equals(hash)) {
+            return null;
+        }
+
+        List<BlockStyle> styles = new ArrayList<>(1);
+        StyleDTO dto = GSON.fromJson(new String(content, StandardCharsets.UTF_8), StyleDTO.class);
+        if (dto != null && dto.id != null) {
+            try {
+                styles.add(parseStyle(dto));
+            } catch (Exception e) {
+                Constants.LOG.error("Failed to parse style content: " + file, e);
+            }
+        }
+        return new ManifestEntry(hash, styles);
+    }
+
+    private static synchronized void startWatching(Path stylesDir) {
+        if (watcher != null) return;
+
+        watcher = new Thread(() -> watch(stylesDir), "TreeCraft-StyleWatcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stop the hot reload watcher, if running
+     */
+    public static synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    private static void watch(Path stylesDir) {
+        try (WatchService service = stylesDir.getFileSystem().newWatchService()) {
+            registerTree(service, stylesDir);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                // Collect the burst of events an editor save produces, then reload once
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        Path changed = ((Path) key.watchable()).resolve((Path) event.context());
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                            registerTree(service, changed);
+                        }
+                    }
+                    key.reset();
+                    key = service.poll(RELOAD_DELAY_MS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+
+                StyleUpdate update = prepare(stylesDir);
+                if (update != null) {
+                    PENDING.add(update);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        } catch (IOException e) {
+            Constants.LOG.error("Style file watcher failed", e);
+        }
+    }
+
+    private static void registerTree(WatchService service, Path root) throws IOException {
+        try (Stream<Path> dirs = Files.walk(root)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                dir.register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    // Visible for testing
+    static synchronized void resetForTest() {
+        stopWatching();
+        PENDING.clear();
+        MANIFEST.clear();
+    }
+
     private static BlockStyle parseStyle(StyleDTO dto) {
         ResourceLocation id = new ResourceLocation(dto.id);
         BlockStyle.Builder builder = new BlockStyle.Builder()
@@ -73,16 +386,16 @@ public class StyleLoader {
 
         if (dto.palette != null) {
             if (dto.palette.trunk != null) {
-                builder.trunk(parseBlocks(dto.palette.trunk));
+                parseBlocks(builder, TreeComponentType.TRUNK, dto.palette.trunk);
             }
             if (dto.palette.branch != null) {
-                builder.branch(parseBlocks(dto.palette.branch));
+                parseBlocks(builder, TreeComponentType.BRANCH, dto.palette.branch);
             }
             if (dto.palette.leaves != null) {
-                builder.leaves(parseBlocks(dto.palette.leaves));
+                parseBlocks(builder, TreeComponentType.LEAVES, dto.palette.leaves);
             }
             if (dto.palette.roots != null) {
-                builder.roots(parseBlocks(dto.palette.roots));
+                parseBlocks(builder, TreeComponentType.ROOT, dto.palette.roots);
             }
         }
 
@@ -97,12 +410,48 @@ public class StyleLoader {
         return builder.build();
     }
 
-    private static Block[] parseBlocks(List<String> blockIds) {
-        return blockIds.stream()
-                .map(ResourceLocation::new)
-                .map(BuiltInRegistries.BLOCK::get)
-                .filter(Objects::nonNull)
-                .toArray(Block[]::new);
+    /**
+     * Palette entries are either a block id or {@code {"block": id, "weight": n}}
+     */
+    private static void parseBlocks(BlockStyle.Builder builder, TreeComponentType type, List<JsonElement> entries) {
+        for (JsonElement entry : entries) {
+            if (entry.isJsonObject()) {
+                JsonObject object = entry.getAsJsonObject();
+                Block block = BuiltInRegistries.BLOCK.get(new ResourceLocation(GsonHelper.getAsString(object, "block")));
+                builder.weighted(type, block, GsonHelper.getAsFloat(object, "weight", 1.0f));
+            } else {
+                builder.blocks(type, BuiltInRegistries.BLOCK.get(new ResourceLocation(entry.getAsString())));
+            }
+        }
+    }
+
+    static final class ManifestEntry {
+        final HashCode hash;
+        final List<BlockStyle> styles;
+        final List<ResourceLocation> styleIds;
+
+        ManifestEntry(HashCode hash, List<BlockStyle> styles) {
+            this.hash = hash;
+            this.styles = styles;
+            this.styleIds = styles.stream().map(BlockStyle::getId).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Registry changes of one reload
+     */
+    private static final class StyleUpdate {
+        final List<BlockStyle> styles;
+        final Collection<ResourceLocation> removed;
+
+        StyleUpdate(List<BlockStyle> styles, Collection<ResourceLocation> removed) {
+            this.styles = styles;
+            this.removed = removed;
+        }
+
+        void apply() {
+            StyleRegistry.update(styles, removed);
+        }
     }
 
     private static class StyleDTO {
@@ -113,10 +462,10 @@ public class StyleLoader {
     }
 
     private static class PaletteDTO {
-        List<String> trunk;
-        List<String> branch;
-        List<String> leaves;
-        List<String> roots;
+        List<JsonElement> trunk;
+        List<JsonElement> branch;
+        List<JsonElement> leaves;
+        List<JsonElement> roots;
     }
 
     private static class MetadataDTO {
@@ -124,4 +473,4 @@ public class StyleLoader {
         String texture_style;
         boolean seasonal_variants;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.treecraft.core.registry;
+
+import com.treecraft.core.api.BlockStyle;
+
+/**
+ * A style found by a similarity or species search, with a score between 0 and 1
+ */
+public final class StyleMatch {
+    private final BlockStyle style;
+    private final double score;
+
+    public StyleMatch(BlockStyle style, double score) {
+        this.style = style;
+        this.score = score;
+    }
+
+    public BlockStyle getStyle() { return style; }
+    public double getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return String.format("StyleMatch{style=%s, score=%.3f}", style.getId(), score);
+    }
+}
@@ -0,0 +1,95 @@
+package com.treecraft.core.registry;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.TreeComponentType;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Query over registered styles. Mod, metadata and palette component criteria are answered by
+ * intersecting the registry's bitset indexes; an optional predicate is only applied to the
+ * styles that pass them.
+ */
+public class StyleQuery {
+    private String modId;
+    private String colorScheme;
+    private String textureStyle;
+    private Boolean seasonal;
+    private final Set<TreeComponentType> requiredComponents = EnumSet.noneOf(TreeComponentType.class);
+    private final Set<TreeComponentType> excludedComponents = EnumSet.noneOf(TreeComponentType.class);
+    private Predicate<BlockStyle> filter;
+
+    StyleQuery() {
+    }
+
+    public StyleQuery mod(String modId) {
+        this.modId = modId;
+        return this;
+    }
+
+    public StyleQuery colorScheme(String colorScheme) {
+        this.colorScheme = colorScheme;
+        return this;
+    }
+
+    public StyleQuery textureStyle(String textureStyle) {
+        this.textureStyle = textureStyle;
+        return this;
+    }
+
+    public StyleQuery seasonal(boolean seasonal) {
+        this.seasonal = seasonal;
+        return this;
+    }
+
+    /**
+     * Only match styles whose palette has blocks for a component
+     */
+    public StyleQuery withComponent(TreeComponentType type) {
+        requiredComponents.add(type);
+        excludedComponents.remove(type);
+        return this;
+    }
+
+    /**
+     * Only match styles whose palette has no blocks for a component
+     */
+    public StyleQuery withoutComponent(TreeComponentType type) {
+        excludedComponents.add(type);
+        requiredComponents.remove(type);
+        return this;
+    }
+
+    /**
+     * Additional check for criteria that have no index
+     */
+    public StyleQuery filter(Predicate<BlockStyle> filter) {
+        this.filter = this.filter == null ? filter : this.filter.and(filter);
+        return this;
+    }
+
+    public List<BlockStyle> list() {
+        return StyleRegistry.snapshot().query(this);
+    }
+
+    public Optional<BlockStyle> first() {
+        List<BlockStyle> result = list();
+        return result.isEmpty() ? Optional.empty() : Optional.of(result.get(0));
+    }
+
+    public int count() {
+        return list().size();
+    }
+
+    String getModId() { return modId; }
+    String getColorScheme() { return colorScheme; }
+    String getTextureStyle() { return textureStyle; }
+    Boolean getSeasonal() { return seasonal; }
+    Set<TreeComponentType> getRequiredComponents() { return requiredComponents; }
+    Set<TreeComponentType> getExcludedComponents() { return excludedComponents; }
+    Predicate<BlockStyle> getFilter() { return filter; }
+}
@@ -1,20 +1,33 @@
 package com.treecraft.core.registry;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.treecraft.core.Constants;
 import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.StyleMetadata;
+import com.treecraft.core.api.StyleSlot;
+import com.treecraft.core.api.TreeComponentType;
 import com.treecraft.core.api.events.StyleRegisteredEvent;
+import com.treecraft.core.api.events.StylesRegisteredEvent;
 import com.treecraft.core.api.events.TreeCraftEvents;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import javax.annotation.Nullable;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
+/**
+ * Registry of block styles. All lookups read one immutable, fully indexed {@link Snapshot}
+ * published through a volatile field; writers build the next snapshot under the registry lock
+ * and swap it in, so readers never lock and never see a partially registered style.
+ */
 public class StyleRegistry {
-    private static final Map<ResourceLocation, BlockStyle> STYLES = new ConcurrentHashMap<>();
-    private static final Map<String, Set<ResourceLocation>> STYLES_BY_MOD = new ConcurrentHashMap<>();
+    private static volatile Snapshot snapshot = Snapshot.EMPTY;
 
     public static void initialize() {
         Constants.LOG.info("Initializing Style Registry...");
@@ -26,63 +39,354 @@ public class StyleRegistry {
     }
 
     public static void register(BlockStyle style) {
-        ResourceLocation id = style.getId();
+        registerAll(List.of(style));
+    }
+
+    /**
+     * Register many styles as one transaction: the styles are validated first, then published in
+     * a single snapshot, and batch listeners receive one {@link StylesRegisteredEvent}. Nothing is
+     * registered if any style is invalid. Per-style {@link StyleRegisteredEvent}s are still posted
+     * for listeners of that event.
+     */
+    public static void registerAll(Collection<BlockStyle> styles) {
+        update(styles, List.of());
+    }
 
-        if (STYLES.containsKey(id)) {
-            Constants.LOG.warn("Style {} already registered, overwriting", id);
+    /**
+     * Register and unregister styles in one transaction, like {@link #registerAll}. Removed ids
+     * that are also registered by the same update are replaced, not removed.
+     */
+    public static void update(Collection<BlockStyle> styles, Collection<ResourceLocation> removedIds) {
+        for (BlockStyle style : styles) {
+            if (style == null || style.getId() == null) {
+                throw new IllegalArgumentException("Cannot register a style without an ID");
+            }
         }
+        if (styles.isEmpty() && removedIds.isEmpty()) return;
 
-        STYLES.put(id, style);
+        List<BlockStyle> added = new ArrayList<>();
+        List<BlockStyle> replaced = new ArrayList<>();
+        List<ResourceLocation> removed = new ArrayList<>();
+        commit(styles, removedIds, added, replaced, removed);
 
-        String modId = id.getNamespace();
-        STYLES_BY_MOD.computeIfAbsent(modId, k -> new HashSet<>()).add(id);
+        if (TreeCraftEvents.hasStylesRegisteredListeners()) {
+            TreeCraftEvents.post(new StylesRegisteredEvent(added, replaced, removed));
+        }
+        if (TreeCraftEvents.hasStyleRegisteredListeners()) {
+            for (BlockStyle style : styles) {
+                TreeCraftEvents.post(new StyleRegisteredEvent(style));
+            }
+        }
+
+        Constants.LOG.debug("Registered {} styles, removed {}", styles.size(), removed.size());
+    }
 
-        TreeCraftEvents.post(new StyleRegisteredEvent(style));
+    /**
+     * Publish a new snapshot containing the given styles
+     */
+    private static synchronized void commit(Collection<BlockStyle> styles, Collection<ResourceLocation> removedIds,
+                                            List<BlockStyle> added, List<BlockStyle> replaced, List<ResourceLocation> removed) {
+        Snapshot current = snapshot;
+        Map<ResourceLocation, BlockStyle> byId = new LinkedHashMap<>(current.byId);
+        Set<ResourceLocation> kept = new HashSet<>();
+        for (BlockStyle style : styles) {
+            kept.add(style.getId());
+        }
+        for (ResourceLocation id : removedIds) {
+            if (!kept.contains(id) && byId.remove(id) != null) {
+                removed.add(id);
+            }
+        }
+        for (BlockStyle style : styles) {
+            if (byId.put(style.getId(), style) != null) {
+                Constants.LOG.warn("Style {} already registered, overwriting", style.getId());
+                replaced.add(style);
+            } else {
+                added.add(style);
+            }
+        }
+        snapshot = new Snapshot(byId.values());
+    }
 
-        Constants.LOG.debug("Registered style: {}", id);
+    /**
+     * Get the current snapshot, for consistent reads across several lookups
+     */
+    public static Snapshot snapshot() {
+        return snapshot;
     }
 
     public static Optional<BlockStyle> getStyle(ResourceLocation id) {
-        return Optional.ofNullable(STYLES.get(id));
+        return Optional.ofNullable(snapshot.get(id));
     }
 
     public static Collection<BlockStyle> getAllStyles() {
-        return Collections.unmodifiableCollection(STYLES.values());
+        return snapshot.all;
     }
 
     public static List<BlockStyle> getStylesByMod(String modId) {
-        Set<ResourceLocation> styleIds = STYLES_BY_MOD.get(modId);
-        if (styleIds == null) {
-            return Collections.emptyList();
-        }
+        return snapshot.byMod.get(modId);
+    }
+
+    public static List<BlockStyle> getStylesByColorScheme(String colorScheme) {
+        return snapshot.byColorScheme.get(colorScheme);
+    }
 
-        return styleIds.stream()
-            .map(STYLES::get)
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+    public static List<BlockStyle> getStylesByTextureStyle(String textureStyle) {
+        return snapshot.byTextureStyle.get(textureStyle);
+    }
+
+    public static List<BlockStyle> getSeasonalStyles() {
+        return snapshot.seasonal;
+    }
+
+    /**
+     * Start a query answered from the registry's secondary indexes
+     */
+    public static StyleQuery query() {
+        return new StyleQuery();
     }
 
     public static List<BlockStyle> findStyles(Predicate<BlockStyle> predicate) {
-        return STYLES.values().stream()
-            .filter(predicate)
-            .collect(Collectors.toList());
+        List<BlockStyle> result = new ArrayList<>();
+        for (BlockStyle style : snapshot.all) {
+            if (predicate.test(style)) {
+                result.add(style);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the styles and palette slots containing any state of a block
+     */
+    public static List<StyleSlot> getSlots(Block block) {
+        return snapshot.getSlots(block);
+    }
+
+    /**
+     * Get the styles and palette slots containing a block state. Falls back to the slots of the
+     * state's block when no palette lists this exact state.
+     */
+    public static List<StyleSlot> getSlots(BlockState state) {
+        return snapshot.getSlots(state);
+    }
+
+    /**
+     * Get the styles whose palette contains a block
+     */
+    public static List<BlockStyle> getStylesContaining(Block block) {
+        return snapshot.getStylesContaining(block);
+    }
+
+    /**
+     * Find the registered styles whose palettes best fit a block that has no style of its own
+     */
+    public static List<StyleMatch> findSimilarStyles(BlockState state, TreeComponentType component, int count) {
+        return snapshot.getSimilarityIndex().nearest(state, component, count);
+    }
+
+    /**
+     * Find the registered styles most similar to a style
+     */
+    public static List<StyleMatch> findSimilarStyles(BlockStyle style, int count) {
+        return snapshot.getSimilarityIndex().nearest(style, count);
     }
 
     public static boolean hasStyle(ResourceLocation id) {
-        return STYLES.containsKey(id);
+        return snapshot.byId.containsKey(id);
     }
 
     public static int getStyleCount() {
-        return STYLES.size();
+        return snapshot.all.size();
     }
 
-    public static void clear() {
-        STYLES.clear();
-        STYLES_BY_MOD.clear();
+    public static synchronized void clear() {
+        snapshot = Snapshot.EMPTY;
         Constants.LOG.info("Style registry cleared");
     }
 
     public static Set<ResourceLocation> getAllStyleIds() {
-        return Collections.unmodifiableSet(STYLES.keySet());
+        return snapshot.byId.keySet();
+    }
+
+    /**
+     * Immutable view of the registry with every index precomputed
+     */
+    public static final class Snapshot {
+        private static final BitSet EMPTY_BITS = new BitSet();
+        static final Snapshot EMPTY = new Snapshot(List.of());
+
+        private final ImmutableMap<ResourceLocation, BlockStyle> byId;
+        private final ImmutableList<BlockStyle> all;
+        private final ImmutableListMultimap<String, BlockStyle> byMod;
+        private final ImmutableListMultimap<String, BlockStyle> byColorScheme;
+        private final ImmutableListMultimap<String, BlockStyle> byTextureStyle;
+        private final ImmutableList<BlockStyle> seasonal;
+        private final ImmutableListMultimap<Block, StyleSlot> slotsByBlock;
+        private final ImmutableListMultimap<BlockState, StyleSlot> slotsByState;
+        private final ImmutableListMultimap<Block, BlockStyle> stylesByBlock;
+
+        // Secondary indexes for StyleQuery, bit i standing for all.get(i)
+        private final Map<String, BitSet> modBits = new HashMap<>();
+        private final Map<String, BitSet> colorSchemeBits = new HashMap<>();
+        private final Map<String, BitSet> textureStyleBits = new HashMap<>();
+        private final BitSet seasonalBits = new BitSet();
+        private final BitSet[] componentBits = new BitSet[TreeComponentType.values().length];
+        private volatile StyleSimilarityIndex similarityIndex;
+
+        private Snapshot(Collection<BlockStyle> styles) {
+            ImmutableMap.Builder<ResourceLocation, BlockStyle> byId = ImmutableMap.builder();
+            ImmutableListMultimap.Builder<String, BlockStyle> byMod = ImmutableListMultimap.builder();
+            ImmutableListMultimap.Builder<String, BlockStyle> byColorScheme = ImmutableListMultimap.builder();
+            ImmutableListMultimap.Builder<String, BlockStyle> byTextureStyle = ImmutableListMultimap.builder();
+            ImmutableList.Builder<BlockStyle> seasonal = ImmutableList.builder();
+            ImmutableListMultimap.Builder<Block, StyleSlot> slotsByBlock = ImmutableListMultimap.builder();
+            ImmutableListMultimap.Builder<BlockState, StyleSlot> slotsByState = ImmutableListMultimap.builder();
+            ImmutableListMultimap.Builder<Block, BlockStyle> stylesByBlock = ImmutableListMultimap.builder();
+
+            for (int i = 0; i < componentBits.length; i++) {
+                componentBits[i] = new BitSet();
+            }
+
+            int ordinal = 0;
+            for (BlockStyle style : styles) {
+                byId.put(style.getId(), style);
+                byMod.put(style.getId().getNamespace(), style);
+                modBits.computeIfAbsent(style.getId().getNamespace(), k -> new BitSet()).set(ordinal);
+
+                StyleMetadata metadata = style.getMetadata();
+                if (metadata != null) {
+                    if (metadata.getColorScheme() != null) {
+                        byColorScheme.put(metadata.getColorScheme(), style);
+                        colorSchemeBits.computeIfAbsent(metadata.getColorScheme(), k -> new BitSet()).set(ordinal);
+                    }
+                    if (metadata.getTextureStyle() != null) {
+                        byTextureStyle.put(metadata.getTextureStyle(), style);
+                        textureStyleBits.computeIfAbsent(metadata.getTextureStyle(), k -> new BitSet()).set(ordinal);
+                    }
+                    if (metadata.hasSeasonalVariants()) {
+                        seasonal.add(style);
+                        seasonalBits.set(ordinal);
+                    }
+                }
+
+                Set<Block> styleBlocks = new HashSet<>();
+                for (Map.Entry<TreeComponentType, List<BlockState>> entry : style.getBlockPalette().entrySet()) {
+                    StyleSlot slot = new StyleSlot(style, entry.getKey());
+                    if (!entry.getValue().isEmpty()) {
+                        componentBits[entry.getKey().ordinal()].set(ordinal);
+                    }
+                    Set<Block> slotBlocks = new HashSet<>();
+                    for (BlockState state : new LinkedHashSet<>(entry.getValue())) {
+                        slotsByState.put(state, slot);
+                        if (slotBlocks.add(state.getBlock())) {
+                            slotsByBlock.put(state.getBlock(), slot);
+                        }
+                        if (styleBlocks.add(state.getBlock())) {
+                            stylesByBlock.put(state.getBlock(), style);
+                        }
+                    }
+                }
+                ordinal++;
+            }
+
+            this.byId = byId.build();
+            this.all = this.byId.values().asList();
+            this.byMod = byMod.build();
+            this.byColorScheme = byColorScheme.build();
+            this.byTextureStyle = byTextureStyle.build();
+            this.seasonal = seasonal.build();
+            this.slotsByBlock = slotsByBlock.build();
+            this.slotsByState = slotsByState.build();
+            this.stylesByBlock = stylesByBlock.build();
+        }
+
+        @Nullable
+        public BlockStyle get(ResourceLocation id) {
+            return byId.get(id);
+        }
+
+        public List<BlockStyle> getAll() {
+            return all;
+        }
+
+        public List<BlockStyle> getByMod(String modId) {
+            return byMod.get(modId);
+        }
+
+        public List<StyleSlot> getSlots(Block block) {
+            return slotsByBlock.get(block);
+        }
+
+        public List<StyleSlot> getSlots(BlockState state) {
+            List<StyleSlot> slots = slotsByState.get(state);
+            return slots.isEmpty() ? slotsByBlock.get(state.getBlock()) : slots;
+        }
+
+        public List<BlockStyle> getStylesContaining(Block block) {
+            return stylesByBlock.get(block);
+        }
+
+        /**
+         * Get the similarity index over this snapshot's styles, built on first use
+         */
+        public StyleSimilarityIndex getSimilarityIndex() {
+            StyleSimilarityIndex index = similarityIndex;
+            if (index == null) {
+                index = new StyleSimilarityIndex(all);
+                similarityIndex = index;
+            }
+            return index;
+        }
+
+        /**
+         * Run a query against this snapshot
+         */
+        public List<BlockStyle> query(StyleQuery query) {
+            BitSet selected = select(query);
+            List<BlockStyle> result = new ArrayList<>(selected.cardinality());
+            for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+                BlockStyle style = all.get(i);
+                if (query.getFilter() == null || query.getFilter().test(style)) {
+                    result.add(style);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Intersect the indexes matching the query's indexed criteria
+         */
+        private BitSet select(StyleQuery query) {
+            BitSet selected = new BitSet(all.size());
+            selected.set(0, all.size());
+            if (query.getModId() != null) {
+                selected.and(modBits.getOrDefault(query.getModId(), EMPTY_BITS));
+            }
+            if (query.getColorScheme() != null) {
+                selected.and(colorSchemeBits.getOrDefault(query.getColorScheme(), EMPTY_BITS));
+            }
+            if (query.getTextureStyle() != null) {
+                selected.and(textureStyleBits.getOrDefault(query.getTextureStyle(), EMPTY_BITS));
+            }
+            if (query.getSeasonal() != null) {
+                if (query.getSeasonal()) {
+                    selected.and(seasonalBits);
+                } else {
+                    selected.andNot(seasonalBits);
+                }
+            }
+            for (TreeComponentType type : query.getRequiredComponents()) {
+                selected.and(componentBits[type.ordinal()]);
+            }
+            for (TreeComponentType type : query.getExcludedComponents()) {
+                selected.andNot(componentBits[type.ordinal()]);
+            }
+            return selected;
+        }
+
+        public int size() {
+            return all.size();
+        }
     }
-}
\ No newline at end of file
+}
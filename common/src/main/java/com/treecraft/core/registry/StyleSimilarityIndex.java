@@ -0,0 +1,142 @@
+package com.treecraft.core.registry;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.detection.heuristics.MaterialHeuristic;
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.*;
+
+/**
+ * Nearest-style search over palette feature vectors.
+ * <p>
+ * Every style is encoded as a fixed-width bit vector by hashing its features: block membership
+ * per component slot, block name tokens, the {@link MaterialHeuristic} sound family of each slot,
+ * block and style namespaces and the metadata colour scheme. Similarity is the cosine of two
+ * bit vectors, so a lookup is a popcount scan over one flat array. Match scores are cosine
+ * similarities between 0 and 1.
+ */
+public class StyleSimilarityIndex {
+    private static final int WORDS = 8;
+    private static final int BITS = WORDS * Long.SIZE;
+
+    private final List<BlockStyle> styles;
+    private final long[] vectors;
+    private final int[] cardinalities;
+
+    StyleSimilarityIndex(List<BlockStyle> styles) {
+        this.styles = styles;
+        this.vectors = new long[styles.size() * WORDS];
+        this.cardinalities = new int[styles.size()];
+        for (int i = 0; i < styles.size(); i++) {
+            long[] vector = encode(styles.get(i));
+            System.arraycopy(vector, 0, vectors, i * WORDS, WORDS);
+            cardinalities[i] = cardinality(vector);
+        }
+    }
+
+    /**
+     * Encode a whole style
+     */
+    public static long[] encode(BlockStyle style) {
+        long[] vector = new long[WORDS];
+        for (Map.Entry<TreeComponentType, List<BlockState>> entry : style.getBlockPalette().entrySet()) {
+            for (BlockState state : entry.getValue()) {
+                addBlock(vector, state, entry.getKey());
+            }
+        }
+        if (style.getId() != null) {
+            set(vector, "n:" + style.getId().getNamespace());
+        }
+        if (style.getMetadata() != null && style.getMetadata().getColorScheme() != null) {
+            set(vector, "c:" + style.getMetadata().getColorScheme());
+        }
+        return vector;
+    }
+
+    /**
+     * Encode a single block that should fill a component slot
+     */
+    public static long[] encode(BlockState state, TreeComponentType component) {
+        long[] vector = new long[WORDS];
+        addBlock(vector, state, component);
+        return vector;
+    }
+
+    private static void addBlock(long[] vector, BlockState state, TreeComponentType component) {
+        ResourceLocation id = BuiltInRegistries.BLOCK.getKey(state.getBlock());
+        set(vector, "b:" + id);
+        set(vector, "s:" + component + ":" + id);
+        set(vector, "n:" + id.getNamespace());
+        for (String token : id.getPath().split("_")) {
+            set(vector, "t:" + component + ":" + token);
+        }
+        set(vector, "f:" + component + ":" + MaterialHeuristic.familyOf(state.getSoundType()));
+    }
+
+    private static void set(long[] vector, String feature) {
+        int bit = (HashCommon.mix(feature.hashCode()) & Integer.MAX_VALUE) % BITS;
+        vector[bit >>> 6] |= 1L << bit;
+    }
+
+    private static int cardinality(long[] vector) {
+        int count = 0;
+        for (long word : vector) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Get up to {@code k} styles most similar to an encoded query, best first
+     */
+    public List<StyleMatch> nearest(long[] query, int k) {
+        int queryCardinality = cardinality(query);
+        if (k <= 0 || queryCardinality == 0) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<StyleMatch> best = new PriorityQueue<>(Comparator.comparingDouble(StyleMatch::getScore));
+        for (int i = 0; i < styles.size(); i++) {
+            int offset = i * WORDS;
+            int common = 0;
+            for (int w = 0; w < WORDS; w++) {
+                common += Long.bitCount(vectors[offset + w] & query[w]);
+            }
+            if (common == 0) continue;
+
+            double score = common / Math.sqrt((double) cardinalities[i] * queryCardinality);
+            if (best.size() < k) {
+                best.add(new StyleMatch(styles.get(i), score));
+            } else if (score > best.peek().getScore()) {
+                best.poll();
+                best.add(new StyleMatch(styles.get(i), score));
+            }
+        }
+
+        List<StyleMatch> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(StyleMatch::getScore).reversed());
+        return result;
+    }
+
+    /**
+     * Get up to {@code k} styles most similar to a style, excluding the style itself
+     */
+    public List<StyleMatch> nearest(BlockStyle style, int k) {
+        List<StyleMatch> matches = nearest(encode(style), k + 1);
+        List<StyleMatch> result = new ArrayList<>(Math.min(k, matches.size()));
+        for (StyleMatch match : matches) {
+            if (match.getStyle() != style && result.size() < k) {
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    public List<StyleMatch> nearest(BlockState state, TreeComponentType component, int k) {
+        return nearest(encode(state, component), k);
+    }
+}
@@ -0,0 +1,63 @@
+package com.treecraft.core.api;
+
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockStyleTest {
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+    }
+
+    @Test
+    void testSample_ShouldFollowWeights() {
+        BlockStyle style = new BlockStyle.Builder()
+            .id(new ResourceLocation("test", "mossy"))
+            .weighted(TreeComponentType.TRUNK, Blocks.OAK_LOG, 3.0f)
+            .weighted(TreeComponentType.TRUNK, Blocks.MOSSY_COBBLESTONE, 1.0f)
+            .build();
+
+        BlockState[] blocks = style.sample(TreeComponentType.TRUNK, RandomSource.create(42), 40000);
+
+        int logs = 0;
+        for (BlockState block : blocks) {
+            if (block.is(Blocks.OAK_LOG)) logs++;
+        }
+        assertEquals(0.75, logs / 40000.0, 0.02);
+    }
+
+    @Test
+    void testUnweightedBlocks_ShouldWeighOne() {
+        BlockStyle style = new BlockStyle.Builder()
+            .id(new ResourceLocation("test", "oak"))
+            .trunk(Blocks.OAK_LOG)
+            .build();
+
+        assertEquals(1.0f, style.getWeight(TreeComponentType.TRUNK, 0));
+        assertSame(Blocks.OAK_LOG.defaultBlockState(), style.sample(TreeComponentType.TRUNK, RandomSource.create()));
+    }
+
+    @Test
+    void testEmptyComponent_ShouldSampleNothing() {
+        BlockStyle style = new BlockStyle.Builder()
+            .id(new ResourceLocation("test", "oak"))
+            .trunk(Blocks.OAK_LOG)
+            .build();
+
+        assertNull(style.sample(TreeComponentType.LEAVES, RandomSource.create()));
+        assertEquals(0, style.sample(TreeComponentType.LEAVES, RandomSource.create(), 10).length);
+    }
+
+    @Test
+    void testInvalidWeight_ShouldThrow() {
+        BlockStyle.Builder builder = new BlockStyle.Builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.weighted(TreeComponentType.TRUNK, Blocks.OAK_LOG, 0));
+    }
+}
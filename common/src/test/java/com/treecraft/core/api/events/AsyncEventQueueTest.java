@@ -0,0 +1,141 @@
+package com.treecraft.core.api.events;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.test.util.MockBlockPos;
+import com.treecraft.core.test.util.MockBlockState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncEventQueueTest {
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        TreeCraftEvents.resetForTest();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TreeCraftEvents.resetForTest();
+    }
+
+    private TreeDetectedEvent event(int x) {
+        return new TreeDetectedEvent(new MockBlockState().get(), MockBlockPos.at(x, 64, 0), TreeComponentType.TRUNK, 1.0f);
+    }
+
+    @Test
+    void testThreadDrain_ShouldDeliverOffPostingThread() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(3);
+        List<Thread> threads = new ArrayList<>();
+        EventSubscription subscription = TreeCraftEvents.onTreeDetected(e -> {
+            threads.add(Thread.currentThread());
+            latch.countDown();
+        }, null, AsyncDelivery.<TreeDetectedEvent>builder().build());
+
+        for (int i = 0; i < 3; i++) {
+            TreeCraftEvents.post(event(i));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse(threads.contains(Thread.currentThread()));
+        assertEquals(3, subscription.getDeliveredCount());
+    }
+
+    @Test
+    void testDropOldest_ShouldKeepNewestEvents() {
+        List<Integer> received = new ArrayList<>();
+        EventSubscription subscription = TreeCraftEvents.onTreeDetected(e -> received.add(e.getPos().getX()), null,
+            AsyncDelivery.<TreeDetectedEvent>builder().capacity(2).drainOnServerTick().build());
+
+        for (int i = 0; i < 5; i++) {
+            TreeCraftEvents.post(event(i));
+        }
+        assertEquals(2, subscription.getQueueDepth());
+        assertEquals(3, subscription.getDroppedCount());
+
+        TreeCraftEvents.drainTickQueues();
+
+        assertEquals(List.of(3, 4), received);
+        assertEquals(0, subscription.getQueueDepth());
+    }
+
+    @Test
+    void testCoalesce_ShouldReplaceQueuedEventWithSameKey() {
+        List<TreeDetectedEvent> received = new ArrayList<>();
+        EventSubscription subscription = TreeCraftEvents.onTreeDetected(received::add, null,
+            AsyncDelivery.<TreeDetectedEvent>builder().coalesceBy(e -> e.getPos().getX() % 2).drainOnServerTick().build());
+
+        TreeDetectedEvent last = null;
+        for (int i = 0; i < 6; i++) {
+            last = event(i);
+            TreeCraftEvents.post(last);
+        }
+        assertEquals(2, subscription.getQueueDepth());
+        assertEquals(4, subscription.getCoalescedCount());
+
+        TreeCraftEvents.drainTickQueues();
+
+        assertEquals(2, received.size());
+        assertSame(last, received.get(1));
+    }
+
+    @Test
+    void testBlock_ShouldDropAfterTimeout() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventSubscription subscription = TreeCraftEvents.onTreeDetected(e -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, null, AsyncDelivery.<TreeDetectedEvent>builder()
+            .capacity(1)
+            .overflow(OverflowPolicy.BLOCK)
+            .blockTimeoutMs(10)
+            .build());
+
+        // The event thread holds the first event, so the queue fills with the second
+        TreeCraftEvents.post(event(0));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        TreeCraftEvents.post(event(1));
+        TreeCraftEvents.post(event(2));
+
+        assertEquals(1, subscription.getQueueDepth());
+        assertEquals(1, subscription.getDroppedCount());
+        release.countDown();
+    }
+
+    @Test
+    void testBlockOnServerTick_ShouldBeRejected() {
+        AsyncDelivery.Builder<TreeDetectedEvent> builder = AsyncDelivery.<TreeDetectedEvent>builder()
+            .overflow(OverflowPolicy.BLOCK)
+            .drainOnServerTick();
+
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    void testUnsubscribe_ShouldStopDelivery() {
+        List<TreeDetectedEvent> received = new ArrayList<>();
+        EventSubscription subscription = TreeCraftEvents.onTreeDetected(received::add, null,
+            AsyncDelivery.<TreeDetectedEvent>builder().drainOnServerTick().build());
+
+        TreeCraftEvents.post(event(0));
+        subscription.unsubscribe();
+        TreeCraftEvents.post(event(1));
+        TreeCraftEvents.drainTickQueues();
+
+        assertTrue(received.isEmpty());
+        assertFalse(TreeCraftEvents.hasTreeDetectedListeners());
+    }
+}
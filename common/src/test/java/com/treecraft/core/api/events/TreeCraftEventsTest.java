@@ -0,0 +1,133 @@
+package com.treecraft.core.api.events;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.test.util.MockBlockPos;
+import com.treecraft.core.test.util.MockBlockState;
+import net.minecraft.world.phys.AABB;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeCraftEventsTest {
+
+    private TreeDetectedEvent event;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        TreeCraftEvents.resetForTest();
+        event = new TreeDetectedEvent(new MockBlockState().get(), MockBlockPos.at(0, 64, 0), TreeComponentType.TRUNK, 0.9f);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TreeCraftEvents.resetForTest();
+    }
+
+    @Test
+    void testNoListeners_ShouldReportEmpty() {
+        assertFalse(TreeCraftEvents.hasTreeDetectedListeners());
+        assertFalse(TreeCraftEvents.hasStructureDetectedListeners());
+        assertFalse(TreeCraftEvents.hasStyleRegisteredListeners());
+    }
+
+    @Test
+    void testPost_ShouldDeliverInRegistrationOrder() {
+        List<String> calls = new ArrayList<>();
+        TreeCraftEvents.onTreeDetected(e -> calls.add("first"));
+        TreeCraftEvents.onTreeDetected(e -> calls.add("second"));
+
+        TreeCraftEvents.post(event);
+
+        assertTrue(TreeCraftEvents.hasTreeDetectedListeners());
+        assertEquals(List.of("first", "second"), calls);
+    }
+
+    @Test
+    void testListenerException_ShouldNotStopOtherListeners() {
+        AtomicInteger calls = new AtomicInteger();
+        TreeCraftEvents.onTreeDetected(e -> { throw new RuntimeException("Oops"); });
+        TreeCraftEvents.onTreeDetected(e -> calls.incrementAndGet());
+
+        TreeCraftEvents.post(event);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testRegisterDuringPost_ShouldApplyToNextPost() {
+        AtomicInteger lateCalls = new AtomicInteger();
+        TreeCraftEvents.onTreeDetected(e -> TreeCraftEvents.onTreeDetected(e2 -> lateCalls.incrementAndGet()));
+
+        TreeCraftEvents.post(event);
+        assertEquals(0, lateCalls.get());
+
+        TreeCraftEvents.post(event);
+        assertEquals(1, lateCalls.get());
+    }
+
+    @Test
+    void testConcurrentPosts_ShouldDeliverEveryEvent() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        TreeCraftEvents.onTreeDetected(e -> calls.incrementAndGet());
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    TreeCraftEvents.post(event);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, calls.get());
+    }
+
+    @Test
+    void testTypeFilter_ShouldSkipOtherTypes() {
+        AtomicInteger calls = new AtomicInteger();
+        TreeCraftEvents.onTreeDetected(e -> calls.incrementAndGet(),
+            EventFilter.builder().types(TreeComponentType.LEAVES).build());
+
+        TreeCraftEvents.post(event);
+
+        assertEquals(0, calls.get());
+        assertTrue(TreeCraftEvents.hasTreeDetectedListeners(TreeComponentType.LEAVES));
+        assertFalse(TreeCraftEvents.hasTreeDetectedListeners(TreeComponentType.TRUNK));
+    }
+
+    @Test
+    void testConfidenceAndRegionFilter_ShouldMatchOnlyInside() {
+        List<TreeDetectedEvent> received = new ArrayList<>();
+        TreeCraftEvents.onTreeDetected(received::add, EventFilter.builder()
+            .minConfidence(0.5f)
+            .region(new AABB(-8, 0, -8, 8, 128, 8))
+            .build());
+
+        TreeCraftEvents.post(event);
+        TreeCraftEvents.post(new TreeDetectedEvent(new MockBlockState().get(), MockBlockPos.at(0, 64, 0), TreeComponentType.TRUNK, 0.2f));
+        TreeCraftEvents.post(new TreeDetectedEvent(new MockBlockState().get(), MockBlockPos.at(100, 64, 0), TreeComponentType.TRUNK, 0.9f));
+
+        assertEquals(List.of(event), received);
+    }
+
+    @Test
+    void testUnfilteredListener_ShouldWantEveryType() {
+        TreeCraftEvents.onTreeDetected(e -> {});
+        TreeCraftEvents.onTreeDetected(e -> {}, EventFilter.builder().types(TreeComponentType.LEAVES).build());
+
+        for (TreeComponentType type : TreeComponentType.values()) {
+            assertTrue(TreeCraftEvents.hasTreeDetectedListeners(type));
+        }
+    }
+}
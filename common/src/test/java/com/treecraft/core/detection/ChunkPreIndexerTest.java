@@ -0,0 +1,112 @@
+package com.treecraft.core.detection;
+
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkPreIndexerTest {
+
+    private static final Predicate<BlockState> IS_LOG = state -> state.is(Blocks.OAK_LOG);
+
+    private LevelChunkSection[] sections;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        sections = new LevelChunkSection[3];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = newSection();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LevelChunkSection newSection() {
+        PalettedContainer<BlockState> states = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY,
+            Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES);
+        return new LevelChunkSection(states, Mockito.mock(PalettedContainerRO.class));
+    }
+
+    private void log(int section, int x, int y, int z) {
+        sections[section].setBlockState(x, y, z, Blocks.OAK_LOG.defaultBlockState());
+    }
+
+    @Test
+    void testScan_ShouldVisitOnlyTrunkBases() {
+        // A column crossing from section 0 into section 1
+        log(0, 3, 14, 4);
+        log(0, 3, 15, 4);
+        log(1, 3, 0, 4);
+        log(1, 3, 1, 4);
+        // A column starting inside section 1
+        log(1, 8, 5, 8);
+        log(1, 8, 6, 8);
+        sections[2].setBlockState(0, 0, 0, Blocks.STONE.defaultBlockState());
+
+        List<int[]> visited = new ArrayList<>();
+        boolean finished = new ChunkPreIndexer.ChunkScan(0L).run(sections, IS_LOG, () -> false,
+            (section, x, y, z) -> visited.add(new int[]{section, x, y, z}));
+
+        assertTrue(finished);
+        assertEquals(2, visited.size());
+        assertArrayEquals(new int[]{0, 3, 14, 4}, visited.get(0));
+        assertArrayEquals(new int[]{1, 8, 5, 8}, visited.get(1));
+    }
+
+    @Test
+    void testScan_ShouldResumeWhereItRanOutOfTime() {
+        for (int x = 0; x < 16; x += 3) {
+            for (int z = 0; z < 16; z += 3) {
+                log(0, x, 0, z);
+                log(1, x, 7, z);
+            }
+        }
+
+        ChunkPreIndexer.ChunkScan scan = new ChunkPreIndexer.ChunkScan(0L);
+        Set<String> visited = new HashSet<>();
+        int[] visits = new int[1];
+        int runs = 0;
+        // Every visit uses up the budget of the run
+        boolean[] spent = new boolean[1];
+        boolean finished = false;
+        while (!finished) {
+            spent[0] = false;
+            finished = scan.run(sections, IS_LOG, () -> spent[0], (section, x, y, z) -> {
+                spent[0] = true;
+                visits[0]++;
+                visited.add(section + "/" + x + "/" + y + "/" + z);
+            });
+            runs++;
+        }
+
+        assertEquals(72, visits[0]);
+        assertEquals(72, visited.size());
+        assertEquals(73, runs);
+    }
+
+    @Test
+    void testScan_ShouldStopBeforeAnyWorkWhenOutOfTime() {
+        log(0, 0, 0, 0);
+
+        ChunkPreIndexer.ChunkScan scan = new ChunkPreIndexer.ChunkScan(0L);
+        List<int[]> visited = new ArrayList<>();
+
+        assertFalse(scan.run(sections, IS_LOG, () -> true, (section, x, y, z) -> visited.add(new int[]{section, x, y, z})));
+        assertTrue(visited.isEmpty());
+        assertTrue(scan.run(sections, IS_LOG, () -> false, (section, x, y, z) -> visited.add(new int[]{section, x, y, z})));
+        assertEquals(1, visited.size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.treecraft.core.detection;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerChunkCache;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LevelSnapshotTest {
+
+    private ServerLevel level;
+    private LevelChunkSection section;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        level = mock(ServerLevel.class);
+        ServerChunkCache chunkSource = mock(ServerChunkCache.class);
+        when(level.getChunkSource()).thenReturn(chunkSource);
+        when(level.getMinSection()).thenReturn(-4);
+        when(level.getMaxSection()).thenReturn(20);
+        when(level.getMinBuildHeight()).thenReturn(-64);
+        when(level.getHeight()).thenReturn(384);
+
+        // Only chunk (0, 0) is loaded, and only its section at y 4 holds blocks
+        section = new LevelChunkSection(new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY,
+            Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES), Mockito.mock(PalettedContainerRO.class));
+        LevelChunkSection empty = new LevelChunkSection(new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY,
+            Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES), Mockito.mock(PalettedContainerRO.class));
+        LevelChunk chunk = mock(LevelChunk.class);
+        when(chunk.getSectionIndexFromSectionY(anyInt())).thenAnswer(invocation -> (int) invocation.getArgument(0) + 4);
+        when(chunk.getSection(anyInt())).thenAnswer(invocation -> (int) invocation.getArgument(0) == 8 ? section : empty);
+        when(chunkSource.getChunkNow(0, 0)).thenReturn(chunk);
+    }
+
+    @Test
+    void testCapture_ShouldReadCopiedStates() {
+        section.setBlockState(2, 3, 4, Blocks.OAK_LOG.defaultBlockState());
+        LevelSnapshot snapshot = LevelSnapshot.capture(level, new BlockPos(2, 67, 4), 0, 1, 1);
+
+        // Later changes to the level are not visible in the copy
+        section.setBlockState(2, 4, 4, Blocks.OAK_LOG.defaultBlockState());
+
+        assertEquals(Blocks.OAK_LOG.defaultBlockState(), snapshot.getBlockState(new BlockPos(2, 67, 4)));
+        assertTrue(snapshot.getBlockState(new BlockPos(2, 68, 4)).isAir());
+        assertTrue(snapshot.getBlockState(new BlockPos(2, 90, 4)).isAir());
+        assertFalse(snapshot.reachedOutside());
+    }
+
+    @Test
+    void testReadOutsideCopy_ShouldBeRemembered() {
+        LevelSnapshot snapshot = LevelSnapshot.capture(level, new BlockPos(2, 67, 4), 1, 1, 1);
+
+        // Chunk (1, 0) was within the radius but not loaded
+        BlockState state = snapshot.getBlockState(new BlockPos(20, 67, 4));
+
+        assertTrue(state.isAir());
+        assertTrue(snapshot.reachedOutside());
+        assertTrue(snapshot.getBounds().isInside(new BlockPos(20, 67, 4)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.compatibility.VanillaAdapter;
+import com.treecraft.core.test.util.MockBlockPos;
+import com.treecraft.core.test.util.MockLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateMatcherTest {
+
+    private MockLevel mockLevel;
+    private BlockPos basePos;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        TemplateMatcher.clear();
+        new VanillaAdapter().createTemplates().forEach(TemplateMatcher::register);
+
+        mockLevel = new MockLevel();
+        basePos = MockBlockPos.at(0, 64, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TemplateMatcher.clear();
+    }
+
+    private void buildOak(int height) {
+        for (int i = 0; i < height; i++) {
+            mockLevel.withBlock(basePos.above(i), Blocks.OAK_LOG.defaultBlockState());
+        }
+        int top = basePos.getY() + height - 1;
+        for (int y = top - 2; y <= top + 1; y++) {
+            int radius = y >= top ? 1 : 2;
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dz = -radius; dz <= radius; dz++) {
+                    BlockPos pos = MockBlockPos.at(dx, y, dz);
+                    if ((dx != 0 || dz != 0 || y > top)) {
+                        mockLevel.withBlock(pos, Blocks.OAK_LEAVES.defaultBlockState());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testVanillaOak_ShouldMatchTemplate() {
+        buildOak(5);
+
+        TreeStructure tree = TemplateMatcher.match(basePos, mockLevel.get());
+
+        assertNotNull(tree);
+        assertEquals(5, tree.getComponentsOfType(TreeComponentType.TRUNK).size());
+        assertTrue(tree.getComponentsOfType(TreeComponentType.LEAVES).size() >= 20);
+    }
+
+    @Test
+    void testTrunkTooTall_ShouldFallBack() {
+        buildOak(9);
+
+        assertNull(TemplateMatcher.match(basePos, mockLevel.get()));
+    }
+
+    @Test
+    void testBranch_ShouldFallBack() {
+        buildOak(5);
+        mockLevel.withBlock(basePos.above(2).east(), Blocks.OAK_LOG.defaultBlockState());
+
+        assertNull(TemplateMatcher.match(basePos, mockLevel.get()));
+    }
+
+    @Test
+    void testUnknownLog_ShouldNotMatch() {
+        mockLevel.withBlock(basePos, Blocks.CHERRY_LOG.defaultBlockState());
+
+        assertNull(TemplateMatcher.match(basePos, mockLevel.get()));
+    }
+}
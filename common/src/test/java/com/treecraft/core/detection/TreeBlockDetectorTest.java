@@ -202,6 +202,7 @@ class TreeBlockDetectorTest {
         IDetectionHeuristic heuristic = mock(IDetectionHeuristic.class);
         when(heuristic.evaluate(any(), any(), any())).thenReturn(new HeuristicResult(TreeComponentType.TRUNK, 0.9f));
         detector.registerHeuristic(heuristic);
+        mockEvents.when(() -> TreeCraftEvents.hasTreeDetectedListeners(any(TreeComponentType.class))).thenReturn(true);
 
         // detectBlockType passes null level/pos, so no event.
         // We must call detect(block, level, pos)
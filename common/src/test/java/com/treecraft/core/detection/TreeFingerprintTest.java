@@ -0,0 +1,112 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.registry.StyleMatch;
+import com.treecraft.core.registry.StyleRegistry;
+import com.treecraft.core.test.util.MockBlockPos;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeFingerprintTest {
+
+    private BlockStyle oak;
+    private BlockStyle birch;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        StyleRegistry.clear();
+        oak = new BlockStyle.Builder()
+            .id(new ResourceLocation("minecraft", "oak"))
+            .trunk(Blocks.OAK_LOG)
+            .leaves(Blocks.OAK_LEAVES)
+            .build();
+        birch = new BlockStyle.Builder()
+            .id(new ResourceLocation("minecraft", "birch"))
+            .trunk(Blocks.BIRCH_LOG)
+            .leaves(Blocks.BIRCH_LEAVES)
+            .build();
+        StyleRegistry.registerAll(List.of(oak, birch));
+    }
+
+    @AfterEach
+    void tearDown() {
+        StyleRegistry.clear();
+    }
+
+    private TreeStructure createTree(Block log, Block leaves) {
+        BlockPos base = MockBlockPos.at(0, 64, 0);
+        TreeStructure tree = new TreeStructure(base);
+        for (int i = 0; i < 5; i++) {
+            tree.addComponent(base.above(i), log.defaultBlockState(), TreeComponentType.TRUNK);
+        }
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                tree.addComponent(base.offset(dx, 5, dz), leaves.defaultBlockState(), TreeComponentType.LEAVES);
+            }
+        }
+        return tree;
+    }
+
+    @Test
+    void testHistogram_ShouldCountBlocksPerComponent() {
+        TreeStructure tree = createTree(Blocks.OAK_LOG, Blocks.OAK_LEAVES);
+        TreeFingerprint fingerprint = tree.getFingerprint();
+
+        assertEquals(5, fingerprint.getCount(TreeComponentType.TRUNK, Blocks.OAK_LOG));
+        assertEquals(9, fingerprint.getCount(TreeComponentType.LEAVES, Blocks.OAK_LEAVES));
+        assertEquals(1, fingerprint.getDistinctBlocks(TreeComponentType.TRUNK));
+        assertEquals(14, fingerprint.getTotal());
+    }
+
+    @Test
+    void testReplacedBlock_ShouldUpdateHistogram() {
+        TreeStructure tree = createTree(Blocks.OAK_LOG, Blocks.OAK_LEAVES);
+        tree.addComponent(MockBlockPos.at(0, 64, 0), Blocks.BIRCH_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+
+        assertEquals(4, tree.getFingerprint().getCount(TreeComponentType.TRUNK, Blocks.OAK_LOG));
+        assertEquals(1, tree.getFingerprint().getCount(TreeComponentType.TRUNK, Blocks.BIRCH_LOG));
+        assertEquals(14, tree.getFingerprint().getTotal());
+    }
+
+    @Test
+    void testSpecies_ShouldMatchStyle() {
+        StyleMatch match = createTree(Blocks.BIRCH_LOG, Blocks.BIRCH_LEAVES).getSpecies().orElseThrow();
+
+        assertSame(birch, match.getStyle());
+        assertEquals(1.0, match.getScore(), 1e-9);
+    }
+
+    @Test
+    void testMixedTree_ShouldScoreExplainedFraction() {
+        StyleMatch match = createTree(Blocks.OAK_LOG, Blocks.BIRCH_LEAVES).getSpecies().orElseThrow();
+
+        assertSame(birch, match.getStyle());
+        assertEquals(9.0 / 14.0, match.getScore(), 1e-9);
+    }
+
+    @Test
+    void testSpecies_ShouldRefreshAfterRegistryChange() {
+        TreeStructure tree = createTree(Blocks.SPRUCE_LOG, Blocks.SPRUCE_LEAVES);
+        assertTrue(tree.getSpecies().isEmpty());
+
+        BlockStyle spruce = new BlockStyle.Builder()
+            .id(new ResourceLocation("minecraft", "spruce"))
+            .trunk(Blocks.SPRUCE_LOG)
+            .leaves(Blocks.SPRUCE_LEAVES)
+            .build();
+        StyleRegistry.register(spruce);
+
+        assertSame(spruce, tree.getSpecies().orElseThrow().getStyle());
+    }
+}
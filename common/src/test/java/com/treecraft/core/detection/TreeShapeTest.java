@@ -0,0 +1,114 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.test.util.MockBlockPos;
+import com.treecraft.core.test.util.MockBlockState;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeShapeTest {
+
+    private BlockState log;
+    private BlockState leaves;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        CompactTree.resetCanonicalForTest();
+        log = new MockBlockState().get();
+        leaves = new MockBlockState().get();
+    }
+
+    private TreeStructure createTree(BlockPos base) {
+        return createTree(base, false);
+    }
+
+    private TreeStructure createTree(BlockPos base, boolean withoutCorner) {
+        TreeStructure tree = new TreeStructure(base);
+        for (int i = 0; i < 5; i++) {
+            tree.addComponent(base.above(i), log, TreeComponentType.TRUNK);
+        }
+        for (int dx = -2; dx <= 2; dx++) {
+            for (int dz = -2; dz <= 2; dz++) {
+                if (withoutCorner && dx == 2 && dz == 2) continue;
+                tree.addComponent(base.offset(dx, 5, dz), leaves, TreeComponentType.LEAVES);
+            }
+        }
+        return tree;
+    }
+
+    @Test
+    void testPacking_ShouldRoundTripNegativeOffsets() {
+        long cell = TreeShape.pack(-3, 12, -700);
+        assertEquals(-3, TreeShape.unpackX(cell));
+        assertEquals(12, TreeShape.unpackY(cell));
+        assertEquals(-700, TreeShape.unpackZ(cell));
+    }
+
+    @Test
+    void testIdenticalTrees_ShouldShareShape() {
+        TreeShape a = TreeShape.of(createTree(MockBlockPos.at(0, 64, 0)));
+        TreeShape b = TreeShape.of(createTree(MockBlockPos.at(500, 70, -300)));
+
+        assertSame(a, b);
+        assertEquals(30, a.size());
+    }
+
+    @Test
+    void testSmallChange_ShouldKeepShapeWithDelta() {
+        BlockPos base = MockBlockPos.at(0, 64, 0);
+        CompactTree original = CompactTree.of(createTree(base));
+
+        TreeStructure changed = createTree(base);
+        changed.addComponent(base.offset(0, 6, 0), leaves, TreeComponentType.LEAVES);
+        CompactTree updated = CompactTree.of(changed, original);
+
+        assertSame(original.getShape(), updated.getShape());
+        assertEquals(1, updated.getDeltaSize());
+        assertTrue(updated.contains(base.offset(0, 6, 0)));
+    }
+
+    @Test
+    void testNearIdenticalTrees_ShouldShareCanonicalShape() {
+        CompactTree first = CompactTree.of(createTree(MockBlockPos.at(0, 64, 0)));
+
+        BlockPos base = MockBlockPos.at(300, 70, 120);
+        CompactTree second = CompactTree.of(createTree(base, true));
+
+        assertSame(first.getShape(), second.getShape());
+        assertEquals(1, second.getDeltaSize());
+        assertFalse(second.contains(base.offset(2, 5, 2)));
+        assertTrue(second.contains(base.offset(-2, 5, -2)));
+        assertEquals(29, second.toStructure().getTotalBlocks());
+    }
+
+    @Test
+    void testDifferentTrunks_ShouldNotShareCanonicalShape() {
+        CompactTree first = CompactTree.of(createTree(MockBlockPos.at(0, 64, 0)));
+
+        BlockPos base = MockBlockPos.at(40, 64, 0);
+        TreeStructure taller = createTree(base);
+        taller.addComponent(base.below(), log, TreeComponentType.TRUNK);
+        CompactTree second = CompactTree.of(taller);
+
+        assertNotSame(first.getShape(), second.getShape());
+        assertEquals(0, second.getDeltaSize());
+    }
+
+    @Test
+    void testToStructure_ShouldRestoreAllBlocks() {
+        BlockPos base = MockBlockPos.at(10, 64, 10);
+        TreeStructure tree = createTree(base);
+
+        TreeStructure restored = CompactTree.of(tree).toStructure();
+
+        assertEquals(tree.getTotalBlocks(), restored.getTotalBlocks());
+        assertEquals(tree.getComponentDistribution(), restored.getComponentDistribution());
+        assertEquals(tree.getBoundingBox(), restored.getBoundingBox());
+        assertSame(leaves, restored.getBlockAt(base.offset(2, 5, 2)).orElseThrow());
+    }
+}
@@ -0,0 +1,96 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.test.util.MockBlockPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.phys.Vec3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeSkeletonTest {
+
+    private TreeStructure tree;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        // A trunk forking into two diagonal branches, with leaves on the right branch tip
+        tree = new TreeStructure(MockBlockPos.at(0, 64, 0));
+        for (int y = 64; y < 70; y++) {
+            tree.addComponent(MockBlockPos.at(0, y, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+        }
+        for (int i = 1; i <= 3; i++) {
+            tree.addComponent(MockBlockPos.at(i, 69 + i, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.BRANCH);
+            tree.addComponent(MockBlockPos.at(-i, 69 + i, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.BRANCH);
+        }
+        tree.addComponent(MockBlockPos.at(3, 73, 0), Blocks.OAK_LEAVES.defaultBlockState(), TreeComponentType.LEAVES);
+        tree.addComponent(MockBlockPos.at(3, 74, 0), Blocks.OAK_LEAVES.defaultBlockState(), TreeComponentType.LEAVES);
+    }
+
+    @Test
+    void testForkingTree_ShouldHaveThreeSegments() {
+        TreeSkeleton skeleton = TreeSkeleton.extract(tree);
+
+        assertEquals(4, skeleton.getNodes().size());
+        assertEquals(3, skeleton.getSegments().size());
+        assertEquals(TreeSkeleton.NodeKind.ROOT, skeleton.getRoot().getKind());
+        assertEquals(1, skeleton.getNodes().stream().filter(n -> n.getKind() == TreeSkeleton.NodeKind.FORK).count());
+        assertEquals(2, skeleton.getNodes().stream().filter(n -> n.getKind() == TreeSkeleton.NodeKind.TIP).count());
+        assertEquals(tree.getTotalBlocks() - 2,
+            skeleton.getSegments().stream().mapToInt(s -> s.getBlocks().length).sum());
+    }
+
+    @Test
+    void testTrunkSegment_ShouldBeVertical() {
+        TreeSkeleton.Segment trunk = TreeSkeleton.extract(tree).getSegments().stream()
+            .filter(s -> s.getStart().getKind() == TreeSkeleton.NodeKind.ROOT)
+            .findFirst().orElseThrow();
+
+        assertEquals(6, trunk.getBlocks().length);
+        assertEquals(5.0, trunk.getLength(), 1e-9);
+        assertEquals(new Vec3(0, 1, 0), trunk.getDirection());
+        assertEquals(TreeSkeleton.NodeKind.FORK, trunk.getEnd().getKind());
+    }
+
+    @Test
+    void testLeaves_ShouldAttachToNearestBranch() {
+        TreeSkeleton.Segment right = TreeSkeleton.extract(tree).getSegments().stream()
+            .filter(s -> s.getEnd().getPosition().x > 1)
+            .findFirst().orElseThrow();
+
+        assertEquals(2, right.getLeaves().length);
+        assertTrue(Arrays.stream(right.getBlocks()).anyMatch(p -> p == MockBlockPos.at(3, 72, 0).asLong()));
+    }
+
+    @Test
+    void testSingleLog_ShouldBeOneDegenerateSegment() {
+        TreeStructure stump = new TreeStructure(MockBlockPos.at(0, 64, 0));
+        stump.addComponent(MockBlockPos.at(0, 64, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+
+        TreeSkeleton skeleton = TreeSkeleton.extract(stump);
+        assertEquals(1, skeleton.getNodes().size());
+        assertEquals(1, skeleton.getSegments().size());
+        assertEquals(0.0, skeleton.getSegments().get(0).getLength());
+    }
+
+    @Test
+    void testTreeWithoutLogs_ShouldBeEmpty() {
+        TreeStructure bush = new TreeStructure(MockBlockPos.at(0, 64, 0));
+        bush.addComponent(MockBlockPos.at(0, 64, 0), Blocks.OAK_LEAVES.defaultBlockState(), TreeComponentType.LEAVES);
+
+        assertTrue(TreeSkeleton.extract(bush).isEmpty());
+    }
+
+    @Test
+    void testAsyncSkeleton_ShouldBeCachedUntilChange() {
+        TreeSkeleton skeleton = tree.getSkeleton().join();
+        assertSame(skeleton, tree.getSkeleton().join());
+
+        tree.addComponent(MockBlockPos.at(0, 63, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.ROOT);
+        assertNotSame(skeleton, tree.getSkeleton().join());
+    }
+}
@@ -0,0 +1,197 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.test.util.MockBlockPos;
+import com.treecraft.core.test.util.MockBlockState;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeSpatialIndexTest {
+
+    private TreeSpatialIndex index;
+    private BlockState log;
+    private BlockState leaves;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        index = new TreeSpatialIndex();
+        log = new MockBlockState().get();
+        leaves = new MockBlockState().get();
+    }
+
+    private TreeStructure createTree(int x, int y, int z) {
+        BlockPos base = MockBlockPos.at(x, y, z);
+        TreeStructure tree = new TreeStructure(base);
+        for (int i = 0; i < 4; i++) {
+            tree.addComponent(base.above(i), log, TreeComponentType.TRUNK);
+        }
+        BlockPos top = base.above(4);
+        tree.addComponent(top, leaves, TreeComponentType.LEAVES);
+        tree.addComponent(top.north(), leaves, TreeComponentType.LEAVES);
+        tree.addComponent(top.south(), leaves, TreeComponentType.LEAVES);
+        return tree;
+    }
+
+    @Test
+    void testRadiusQuery_ShouldReturnTreesWithinRadius() {
+        TreeStructure near = createTree(5, 64, 5);
+        TreeStructure far = createTree(100, 64, 100);
+        index.put(near);
+        index.put(far);
+
+        List<TreeStructure> result = index.getTreesInRadius(new Vec3(0, 64, 0), 32);
+
+        assertEquals(1, result.size());
+        assertEquals(near.getBasePos(), result.get(0).getBasePos());
+    }
+
+    @Test
+    void testBoxQuery_ShouldReturnIntersectingTrees() {
+        TreeStructure a = createTree(0, 64, 0);
+        TreeStructure b = createTree(40, 64, 40);
+        index.put(a);
+        index.put(b);
+
+        List<TreeStructure> result = index.getTreesInBox(new AABB(35, 60, 35, 45, 80, 45));
+
+        assertEquals(1, result.size());
+        assertEquals(b.getBasePos(), result.get(0).getBasePos());
+    }
+
+    @Test
+    void testTreeSpanningChunks_ShouldBeReturnedOnce() {
+        // Leaves to the north cross the chunk border at z = 0
+        TreeStructure tree = createTree(8, 64, 0);
+        index.put(tree);
+
+        List<TreeStructure> result = index.getTreesInBox(new AABB(-16, 0, -16, 32, 128, 32));
+
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void testNearestQuery_ShouldOrderByDistance() {
+        TreeStructure first = createTree(3, 64, 0);
+        TreeStructure second = createTree(20, 64, 0);
+        TreeStructure third = createTree(50, 64, 0);
+        index.put(third);
+        index.put(first);
+        index.put(second);
+
+        List<TreeStructure> result = index.getNearestTrees(new Vec3(0, 64, 0), 2, 128);
+
+        assertEquals(2, result.size());
+        assertEquals(first.getBasePos(), result.get(0).getBasePos());
+        assertEquals(second.getBasePos(), result.get(1).getBasePos());
+    }
+
+    @Test
+    void testNearestQuery_ShouldRespectMaxDistance() {
+        index.put(createTree(200, 64, 200));
+
+        assertTrue(index.getNearestTree(new Vec3(0, 64, 0), 64).isEmpty());
+    }
+
+    @Test
+    void testPutSameBase_ShouldReplaceTree() {
+        TreeStructure original = createTree(0, 64, 0);
+        TreeStructure updated = createTree(0, 64, 0);
+        updated.addComponent(MockBlockPos.at(0, 69, 0), leaves, TreeComponentType.LEAVES);
+        index.put(original);
+        index.put(updated);
+
+        assertEquals(1, index.size());
+        assertEquals(updated.getTotalBlocks(), index.getTreeAt(MockBlockPos.at(0, 65, 0)).orElseThrow().getTotalBlocks());
+    }
+
+    @Test
+    void testQueries_ShouldRebuildTreesFromCompactForm() {
+        TreeStructure tree = createTree(0, 64, 0);
+        index.put(tree);
+
+        TreeStructure stored = index.getTreeAt(MockBlockPos.at(0, 64, 0)).orElseThrow();
+
+        assertNotSame(tree, stored);
+        assertEquals(tree.getTotalBlocks(), stored.getTotalBlocks());
+        assertEquals(tree.getBoundingBox(), stored.getBoundingBox());
+        assertSame(leaves, stored.getBlockAt(MockBlockPos.at(0, 68, -1)).orElseThrow());
+    }
+
+    @Test
+    void testQueries_ShouldShareTheBuiltStructure() {
+        index.put(createTree(0, 64, 0));
+
+        TreeStructure first = index.getTreeAt(MockBlockPos.at(0, 64, 0)).orElseThrow();
+
+        assertSame(first, index.getTreeAt(MockBlockPos.at(0, 65, 0)).orElseThrow());
+        assertSame(first, index.getTreesInRadius(new Vec3(0, 64, 0), 16).get(0));
+    }
+
+    @Test
+    void testRemove_ShouldDropTreeFromQueries() {
+        TreeStructure tree = createTree(0, 64, 0);
+        index.put(tree);
+
+        assertTrue(index.remove(tree));
+        assertEquals(0, index.size());
+        assertTrue(index.getTreesInRadius(new Vec3(0, 64, 0), 16).isEmpty());
+        assertTrue(index.getTreeAt(MockBlockPos.at(0, 64, 0)).isEmpty());
+    }
+
+    @Test
+    void testInvalidate_ShouldDropTreesTouchingPosition() {
+        TreeStructure tree = createTree(0, 64, 0);
+        TreeStructure other = createTree(40, 64, 40);
+        index.put(tree);
+        index.put(other);
+
+        // Directly above the top leaves, outside the box
+        assertEquals(1, index.invalidate(MockBlockPos.at(0, 69, 0)));
+        assertEquals(1, index.size());
+        assertTrue(index.getTreeAt(MockBlockPos.at(0, 64, 0)).isEmpty());
+        assertEquals(other.getBasePos(), index.getTreeAt(MockBlockPos.at(40, 64, 40)).orElseThrow().getBasePos());
+    }
+
+    @Test
+    void testInvalidate_ShouldFindTreesAcrossChunkBorder() {
+        // Trunk at x = 15, the changed block at x = 16 is in the next chunk
+        index.put(createTree(15, 64, 5));
+
+        assertEquals(1, index.invalidate(MockBlockPos.at(16, 64, 5)));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testInvalidate_ShouldKeepDistantTrees() {
+        index.put(createTree(0, 64, 0));
+
+        assertEquals(0, index.invalidate(MockBlockPos.at(3, 64, 0)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testEvictChunk_ShouldDropTreesOverlappingChunk() {
+        // Leaves to the north cross into chunk (0, -1)
+        TreeStructure spanning = createTree(8, 64, 0);
+        TreeStructure inside = createTree(8, 64, 8);
+        TreeStructure elsewhere = createTree(40, 64, 40);
+        index.put(spanning);
+        index.put(inside);
+        index.put(elsewhere);
+
+        assertEquals(1, index.evictChunk(0, -1));
+        assertEquals(2, index.size());
+        assertEquals(1, index.evictChunk(0, 0));
+        assertEquals(1, index.size());
+        assertTrue(index.getTreesInBox(new AABB(-16, 0, -16, 32, 128, 32)).isEmpty());
+    }
+}
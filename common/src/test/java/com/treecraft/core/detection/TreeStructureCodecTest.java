@@ -0,0 +1,132 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.test.util.MockBlockPos;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.RotatedPillarBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeStructureCodecTest {
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+    }
+
+    /**
+     * A large jungle-style tree: a 2x2 trunk, side branches and a round leaf canopy
+     */
+    private static TreeStructure largeTree(int targetBlocks) {
+        BlockPos base = MockBlockPos.at(1000, 64, -2000);
+        TreeStructure tree = new TreeStructure(base);
+        Random random = new Random(42);
+        int height = 30;
+        for (int y = 0; y < height; y++) {
+            for (int dx = 0; dx < 2; dx++) {
+                for (int dz = 0; dz < 2; dz++) {
+                    tree.addComponent(base.offset(dx, y, dz), Blocks.JUNGLE_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+                }
+            }
+        }
+        for (int b = 0; b < 8; b++) {
+            Direction direction = Direction.from2DDataValue(b % 4);
+            BlockPos start = base.offset(0, 12 + b * 2, 0);
+            // Start outside the 2x2 trunk
+            for (int i = 2; i <= 6; i++) {
+                tree.addComponent(start.relative(direction, i),
+                    Blocks.JUNGLE_LOG.defaultBlockState().setValue(RotatedPillarBlock.AXIS, direction.getAxis()),
+                    TreeComponentType.BRANCH);
+            }
+        }
+        // Canopy: a sphere around the upper trunk with a few gaps, filled from the bottom up
+        for (int y = 18; y <= 42 && tree.getTotalBlocks() < targetBlocks; y++) {
+            for (int dx = -12; dx <= 12; dx++) {
+                for (int dz = -12; dz <= 12; dz++) {
+                    int dy = y - 30;
+                    BlockPos pos = base.offset(dx, y, dz);
+                    if (dx * dx + dy * dy + dz * dz > 144 || random.nextInt(10) == 0 || tree.containsPosition(pos)) continue;
+                    if (tree.getTotalBlocks() >= targetBlocks) break;
+
+                    int distance = 1 + random.nextInt(6);
+                    tree.addComponent(pos, Blocks.JUNGLE_LEAVES.defaultBlockState().setValue(LeavesBlock.DISTANCE, distance),
+                        TreeComponentType.LEAVES);
+                }
+            }
+        }
+        return tree;
+    }
+
+    private static void assertSameTree(TreeStructure expected, TreeStructure actual) {
+        assertEquals(expected.getBasePos(), actual.getBasePos());
+        assertEquals(expected.getDetectedTime(), actual.getDetectedTime());
+        assertEquals(expected.getTotalBlocks(), actual.getTotalBlocks());
+        assertEquals(expected.getBoundingBox(), actual.getBoundingBox());
+        expected.forEachBlock((pos, state, type) -> {
+            assertEquals(state, actual.getBlockAt(pos).orElseThrow());
+            assertEquals(type, actual.getComponentTypeAt(pos).orElseThrow());
+        });
+    }
+
+    @Test
+    void testNbt_ShouldRoundTrip() {
+        TreeStructure tree = largeTree(2000);
+        assertSameTree(tree, TreeStructureCodec.fromNbt(TreeStructureCodec.toNbt(tree)));
+    }
+
+    @Test
+    void testBuffer_ShouldRoundTrip() {
+        TreeStructure tree = largeTree(2000);
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        TreeStructureCodec.write(buf, tree);
+
+        assertSameTree(tree, TreeStructureCodec.read(buf));
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    void testEmptyTree_ShouldRoundTrip() {
+        TreeStructure tree = new TreeStructure(MockBlockPos.at(5, 70, 5));
+        assertEquals(0, TreeStructureCodec.fromNbt(TreeStructureCodec.toNbt(tree)).getTotalBlocks());
+
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        TreeStructureCodec.write(buf, tree);
+        assertEquals(0, TreeStructureCodec.read(buf).getTotalBlocks());
+    }
+
+    @Test
+    void testLargeTree_ShouldEncodeToAFewKilobytes() throws IOException {
+        TreeStructure tree = largeTree(5000);
+        assertEquals(5000, tree.getTotalBlocks());
+
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        TreeStructureCodec.write(buf, tree);
+        assertTrue(buf.readableBytes() < 8 * 1024, "buffer size " + buf.readableBytes());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NbtIo.write(TreeStructureCodec.toNbt(tree), new DataOutputStream(bytes));
+        assertTrue(bytes.size() < 10 * 1024, "nbt size " + bytes.size());
+    }
+
+    @Test
+    void testUnknownVersion_ShouldBeRejected() {
+        CompoundTag tag = TreeStructureCodec.toNbt(largeTree(100));
+        tag.putInt("Version", TreeStructureCodec.VERSION + 1);
+
+        assertThrows(IllegalArgumentException.class, () -> TreeStructureCodec.fromNbt(tag));
+    }
+}
@@ -3,6 +3,8 @@ package com.treecraft.core.detection;
 import com.treecraft.core.api.HeuristicResult;
 import com.treecraft.core.api.IDetectionHeuristic;
 import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.api.events.TreeBlocksDetectedEvent;
+import com.treecraft.core.api.events.TreeCraftEvents;
 import com.treecraft.core.test.util.MockBlockPos;
 import com.treecraft.core.test.util.MockBlockState;
 import com.treecraft.core.test.util.MockLevel;
@@ -14,7 +16,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -67,6 +73,7 @@ class TreeStructureDetectorTest {
     @AfterEach
     void tearDown() {
         TreeBlockDetector.getInstance().resetForTest();
+        TreeCraftEvents.resetForTest();
     }
 
     @Test
@@ -123,6 +130,27 @@ class TreeStructureDetectorTest {
         assertEquals(1, tree.getComponentsOfType(TreeComponentType.LEAVES).size());
     }
 
+    @Test
+    void testBatchedEvent_ShouldCarryAllClassifiedBlocks() {
+        BlockPos basePos = MockBlockPos.at(0, 64, 0);
+        mockLevel.withBlock(basePos, trunkBlock.get());
+        mockLevel.withBlock(basePos.above(), trunkBlock.get());
+        mockLevel.withBlock(basePos.above(2), leavesBlock.get());
+
+        List<TreeBlocksDetectedEvent> events = new ArrayList<>();
+        TreeCraftEvents.onTreeBlocksDetected(events::add);
+
+        TreeStructureDetector.detectTree(basePos, mockLevel.get());
+
+        assertEquals(1, events.size());
+        TreeBlocksDetectedEvent event = events.get(0);
+        assertEquals(3, event.size());
+        assertEquals(basePos, event.getPos(0));
+        assertEquals(TreeComponentType.TRUNK, event.getDetectedType(0));
+        assertEquals(TreeComponentType.LEAVES, event.getDetectedType(2));
+        assertSame(leavesBlock.get(), event.getBlock(2));
+    }
+
     @Test
     void testDisconnectedBlocks_ShouldNotBeIncluded() {
         BlockPos basePos = MockBlockPos.at(0, 64, 0);
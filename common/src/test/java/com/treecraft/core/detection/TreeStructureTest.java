@@ -0,0 +1,121 @@
+package com.treecraft.core.detection;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.test.util.MockBlockPos;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeStructureTest {
+
+    private TreeStructure tree;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        tree = new TreeStructure(MockBlockPos.at(0, 64, 0));
+        for (int y = 0; y < 10; y++) {
+            tree.addComponent(MockBlockPos.at(0, 64 + y, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+        }
+        for (int x = -20; x <= 20; x++) {
+            for (int z = -20; z <= 20; z++) {
+                tree.addComponent(MockBlockPos.at(x, 74, z), Blocks.OAK_LEAVES.defaultBlockState(), TreeComponentType.LEAVES);
+            }
+        }
+    }
+
+    @Test
+    void testForEachPosition_ShouldVisitEveryBlock() {
+        LongSet visited = new LongOpenHashSet();
+        tree.forEachPosition(visited::add);
+
+        Set<Long> expected = tree.getAllPositions().stream().map(BlockPos::asLong).collect(Collectors.toSet());
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void testPerTypeIteration_ShouldOnlyVisitThatType() {
+        LongSet trunk = new LongOpenHashSet();
+        tree.forEachPosition(TreeComponentType.TRUNK, trunk::add);
+
+        assertEquals(10, trunk.size());
+        assertTrue(trunk.contains(MockBlockPos.at(0, 70, 0).asLong()));
+        assertEquals(0, tree.positions(TreeComponentType.ROOT, false).count());
+    }
+
+    @Test
+    void testForEachBlock_ShouldReportTypes() {
+        int[] leaves = new int[1];
+        tree.forEachBlock((pos, state, type) -> {
+            if (type == TreeComponentType.LEAVES) {
+                assertTrue(state.is(Blocks.OAK_LEAVES));
+                leaves[0]++;
+            }
+        });
+        assertEquals(41 * 41, leaves[0]);
+    }
+
+    @Test
+    void testSpliterator_ShouldSplitAndCoverEverything() {
+        Spliterator.OfLong spliterator = tree.positionSpliterator();
+        Spliterator.OfLong prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+
+        LongSet visited = new LongOpenHashSet();
+        prefix.forEachRemaining((long pos) -> visited.add(pos));
+        spliterator.forEachRemaining((long pos) -> visited.add(pos));
+        assertEquals(tree.getTotalBlocks(), visited.size());
+    }
+
+    @Test
+    void testParallelStream_ShouldMatchSequential() {
+        assertEquals(tree.positions(false).sum(), tree.positions(true).sum());
+        assertEquals(tree.getTotalBlocks(), tree.positions(true).count());
+    }
+
+    @Test
+    void testMetrics_ShouldSummarizeShape() {
+        TreeMetrics metrics = tree.getMetrics();
+
+        assertEquals(10, metrics.getLogCount());
+        assertEquals(41 * 41, metrics.getLeafCount());
+        assertEquals(1.0, metrics.getTrunkDiameter(), 1e-9);
+        assertEquals(41 * 41, metrics.getCanopyVolume());
+        assertEquals(41 * 41 / 10.0, metrics.getLeafToLogRatio(), 1e-9);
+        assertEquals(0.0, metrics.getLeanAngle(), 1e-9);
+        assertEquals(0.5, metrics.getCenterOfMass().x, 1e-9);
+    }
+
+    @Test
+    void testMetrics_ShouldBeCachedUntilTreeChanges() {
+        TreeMetrics metrics = tree.getMetrics();
+        assertSame(metrics, tree.getMetrics());
+
+        tree.addComponent(MockBlockPos.at(1, 64, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+        TreeMetrics updated = tree.getMetrics();
+        assertNotSame(metrics, updated);
+        assertEquals(11, updated.getLogCount());
+        assertEquals(1.1, updated.getTrunkDiameter(), 1e-9);
+    }
+
+    @Test
+    void testLeaningTrunk_ShouldHaveLeanAngle() {
+        TreeStructure leaning = new TreeStructure(MockBlockPos.at(0, 64, 0));
+        for (int i = 0; i < 5; i++) {
+            leaning.addComponent(MockBlockPos.at(i, 64 + i, 0), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+        }
+
+        assertEquals(45.0, leaning.getMetrics().getLeanAngle(), 1e-9);
+        assertEquals(5, leaning.getHeight());
+        assertEquals(3, leaning.getWidth());
+    }
+}
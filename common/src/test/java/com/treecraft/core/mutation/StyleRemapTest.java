@@ -0,0 +1,69 @@
+package com.treecraft.core.mutation;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.TreeComponentType;
+import net.minecraft.core.Direction;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LeavesBlock;
+import net.minecraft.world.level.block.RotatedPillarBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StyleRemapTest {
+
+    private StyleRemap remap;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        BlockStyle summer = new BlockStyle.Builder()
+            .id(new ResourceLocation("test", "summer"))
+            .trunk(Blocks.OAK_LOG, Blocks.OAK_WOOD)
+            .leaves(Blocks.OAK_LEAVES)
+            .build();
+        BlockStyle autumn = new BlockStyle.Builder()
+            .id(new ResourceLocation("test", "autumn"))
+            .trunk(Blocks.BIRCH_LOG)
+            .leaves(Blocks.BIRCH_LEAVES)
+            .build();
+        remap = StyleRemap.between(summer, autumn);
+    }
+
+    @Test
+    void testRemap_ShouldCarryOverSharedProperties() {
+        BlockState log = Blocks.OAK_LOG.defaultBlockState().setValue(RotatedPillarBlock.AXIS, Direction.Axis.X);
+        BlockState leaves = Blocks.OAK_LEAVES.defaultBlockState()
+            .setValue(LeavesBlock.DISTANCE, 3)
+            .setValue(LeavesBlock.PERSISTENT, true);
+
+        BlockState remappedLog = remap.remap(TreeComponentType.TRUNK, log);
+        BlockState remappedLeaves = remap.remap(TreeComponentType.LEAVES, leaves);
+
+        assertEquals(Blocks.BIRCH_LOG, remappedLog.getBlock());
+        assertEquals(Direction.Axis.X, remappedLog.getValue(RotatedPillarBlock.AXIS));
+        assertEquals(Blocks.BIRCH_LEAVES, remappedLeaves.getBlock());
+        assertEquals(3, remappedLeaves.getValue(LeavesBlock.DISTANCE));
+        assertTrue(remappedLeaves.getValue(LeavesBlock.PERSISTENT));
+    }
+
+    @Test
+    void testShorterTargetPalette_ShouldWrapAround() {
+        assertEquals(Blocks.BIRCH_LOG, remap.remap(TreeComponentType.TRUNK, Blocks.OAK_WOOD.defaultBlockState()).getBlock());
+    }
+
+    @Test
+    void testForeignBlocks_ShouldBeLeftAlone() {
+        assertNull(remap.remap(TreeComponentType.TRUNK, Blocks.SPRUCE_LOG.defaultBlockState()));
+        assertNull(remap.remap(TreeComponentType.ROOT, Blocks.OAK_LOG.defaultBlockState()));
+    }
+
+    @Test
+    void testRemappedStates_ShouldBeCached() {
+        BlockState log = Blocks.OAK_LOG.defaultBlockState();
+        assertSame(remap.remap(TreeComponentType.TRUNK, log), remap.remap(TreeComponentType.TRUNK, log));
+    }
+}
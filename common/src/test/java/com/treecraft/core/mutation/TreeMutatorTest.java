@@ -0,0 +1,163 @@
+package com.treecraft.core.mutation;
+
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.detection.TreeStructure;
+import com.treecraft.core.test.util.MockBlockPos;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeMutatorTest {
+
+    private TreeStructure tree;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        BlockPos base = MockBlockPos.at(14, 64, 0);
+        tree = new TreeStructure(base);
+        for (int y = 0; y < 4; y++) {
+            tree.addComponent(base.above(y), Blocks.OAK_LOG.defaultBlockState(), TreeComponentType.TRUNK);
+        }
+        tree.addComponent(MockBlockPos.at(15, 67, 0), Blocks.OAK_LEAVES.defaultBlockState(), TreeComponentType.LEAVES);
+        tree.addComponent(MockBlockPos.at(16, 67, 0), Blocks.OAK_LEAVES.defaultBlockState(), TreeComponentType.LEAVES);
+    }
+
+    @Test
+    void testPlanRemove_ShouldClearEveryPosition() {
+        Long2ObjectMap<BlockState> writes = TreeMutator.planRemove(tree);
+
+        assertEquals(tree.getTotalBlocks(), writes.size());
+        assertTrue(writes.values().stream().allMatch(BlockState::isAir));
+    }
+
+    @Test
+    void testPlanReplace_ShouldOnlyWriteMappedBlocks() {
+        TreeStructure replaced = new TreeStructure(tree.getBasePos());
+        Long2ObjectMap<BlockState> writes = TreeMutator.planReplace(tree,
+            (type, state) -> type == TreeComponentType.LEAVES ? Blocks.BIRCH_LEAVES.defaultBlockState() : null,
+            replaced);
+
+        assertEquals(2, writes.size());
+        assertEquals(tree.getTotalBlocks(), replaced.getTotalBlocks());
+        assertEquals(Blocks.BIRCH_LEAVES.defaultBlockState(), replaced.getBlockAt(MockBlockPos.at(16, 67, 0)).orElseThrow());
+        assertEquals(Blocks.OAK_LOG.defaultBlockState(), replaced.getBlockAt(tree.getBasePos()).orElseThrow());
+    }
+
+    @Test
+    void testPlanShift_ShouldKeepOverlappingTargets() {
+        TreeStructure shifted = new TreeStructure(tree.getBasePos().above());
+        Long2ObjectMap<BlockState> writes = TreeMutator.planShift(tree, 0, 1, 0, shifted);
+
+        // The old base is cleared, the old top is overwritten by the block below it
+        assertTrue(writes.get(tree.getBasePos().asLong()).isAir());
+        assertEquals(Blocks.OAK_LOG.defaultBlockState(), writes.get(tree.getBasePos().above(3).asLong()));
+        assertEquals(Blocks.OAK_LEAVES.defaultBlockState(), writes.get(MockBlockPos.at(16, 68, 0).asLong()));
+        assertEquals(tree.getTotalBlocks(), shifted.getTotalBlocks());
+        assertTrue(shifted.containsPosition(tree.getBasePos().above(4)));
+    }
+
+    @Test
+    void testFindBlockedTargets_ShouldOnlyCheckTargetsOutsideTheTree() {
+        long stone = MockBlockPos.at(15, 68, 0).asLong();
+        long grass = MockBlockPos.at(16, 68, 0).asLong();
+        LongSet checked = new LongOpenHashSet();
+
+        LongList blocked = TreeMutator.findBlockedTargets(tree, 0, 1, 0, packed -> {
+            checked.add(packed);
+            if (packed == stone) return Blocks.STONE.defaultBlockState();
+            if (packed == grass) return Blocks.GRASS.defaultBlockState();
+            return Blocks.AIR.defaultBlockState();
+        });
+
+        assertEquals(LongList.of(stone), blocked);
+        // The trunk moves into its own positions, only the new top and the leaves are checked
+        assertEquals(3, checked.size());
+    }
+
+    @Test
+    void testFindBlockedTargets_ShouldRefuseUnloadedTargets() {
+        LongList blocked = TreeMutator.findBlockedTargets(tree, 64, 0, 0, packed -> null);
+
+        assertEquals(tree.getTotalBlocks(), blocked.size());
+    }
+
+    @Test
+    void testGroupBySection_ShouldSplitAtSectionBorders() {
+        Long2ObjectMap<LongList> bySection = TreeMutator.groupBySection(TreeMutator.planRemove(tree).keySet());
+
+        assertEquals(2, bySection.size());
+        assertEquals(5, bySection.get(SectionPos.asLong(0, 4, 0)).size());
+        assertEquals(1, bySection.get(SectionPos.asLong(1, 4, 0)).size());
+    }
+
+    @Test
+    void testRewritePaletteEntry_ShouldSwapEveryCellOfTheState() {
+        PalettedContainer<BlockState> states = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY,
+            Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES);
+        states.set(1, 2, 3, Blocks.OAK_LEAVES.defaultBlockState());
+        states.set(4, 5, 6, Blocks.OAK_LEAVES.defaultBlockState());
+        states.set(7, 8, 9, Blocks.OAK_LOG.defaultBlockState());
+
+        assertTrue(TreeMutator.rewritePaletteEntry(states, Blocks.OAK_LEAVES.defaultBlockState(), Blocks.BIRCH_LEAVES.defaultBlockState()));
+
+        assertEquals(Blocks.BIRCH_LEAVES.defaultBlockState(), states.get(1, 2, 3));
+        assertEquals(Blocks.BIRCH_LEAVES.defaultBlockState(), states.get(4, 5, 6));
+        assertEquals(Blocks.OAK_LOG.defaultBlockState(), states.get(7, 8, 9));
+        assertEquals(Blocks.AIR.defaultBlockState(), states.get(0, 0, 0));
+        assertFalse(states.maybeHas(state -> state == Blocks.OAK_LEAVES.defaultBlockState()));
+    }
+
+    @Test
+    void testRewritePaletteEntry_ShouldRefuseTargetAlreadyInPalette() {
+        PalettedContainer<BlockState> states = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY,
+            Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES);
+        states.set(1, 2, 3, Blocks.OAK_LEAVES.defaultBlockState());
+        states.set(4, 5, 6, Blocks.BIRCH_LEAVES.defaultBlockState());
+
+        assertFalse(TreeMutator.rewritePaletteEntry(states, Blocks.OAK_LEAVES.defaultBlockState(), Blocks.BIRCH_LEAVES.defaultBlockState()));
+        assertEquals(Blocks.OAK_LEAVES.defaultBlockState(), states.get(1, 2, 3));
+    }
+
+    @Test
+    void testWriteSection_ShouldNotSwapStatesWrittenByTheSameBatch() {
+        LevelChunkSection section = new LevelChunkSection(new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY,
+            Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES), Mockito.mock(PalettedContainerRO.class));
+        section.setBlockState(1, 2, 3, Blocks.OAK_LEAVES.defaultBlockState());
+        section.setBlockState(4, 5, 6, Blocks.OAK_LEAVES.defaultBlockState());
+        section.setBlockState(7, 8, 9, Blocks.BIRCH_LEAVES.defaultBlockState());
+
+        // Oak becomes birch, then the birch already there becomes spruce
+        Long2ObjectMap<BlockState> writes = new Long2ObjectLinkedOpenHashMap<>();
+        writes.put(BlockPos.asLong(1, 2, 3), Blocks.BIRCH_LEAVES.defaultBlockState());
+        writes.put(BlockPos.asLong(4, 5, 6), Blocks.BIRCH_LEAVES.defaultBlockState());
+        writes.put(BlockPos.asLong(7, 8, 9), Blocks.SPRUCE_LEAVES.defaultBlockState());
+        LongList fallback = new LongArrayList();
+        LongList written = new LongArrayList();
+
+        TreeMutator.writeSection(section, writes, new LongArrayList(writes.keySet()), fallback,
+            (packed, previous, state) -> written.add(packed));
+
+        assertEquals(Blocks.BIRCH_LEAVES.defaultBlockState(), section.getBlockState(1, 2, 3));
+        assertEquals(Blocks.BIRCH_LEAVES.defaultBlockState(), section.getBlockState(4, 5, 6));
+        assertEquals(Blocks.SPRUCE_LEAVES.defaultBlockState(), section.getBlockState(7, 8, 9));
+        assertEquals(3, written.size());
+        assertTrue(fallback.isEmpty());
+    }
+}
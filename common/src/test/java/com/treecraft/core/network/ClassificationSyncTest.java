@@ -0,0 +1,117 @@
+package com.treecraft.core.network;
+
+import com.treecraft.core.detection.ClassificationTable;
+import com.treecraft.core.detection.TreeBlockDetector;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassificationSyncTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        ClassificationSync.resetForTest(cacheDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ClassificationTable.resetForTest();
+    }
+
+    /**
+     * Pass a payload through a buffer copy, as the network would
+     */
+    private static FriendlyByteBuf transfer(FriendlyByteBuf buf) {
+        return new FriendlyByteBuf(Unpooled.copiedBuffer(buf));
+    }
+
+    @Test
+    void testTable_ShouldBeTransferredAndCached() throws IOException {
+        FriendlyByteBuf request = ClassificationSync.handleClient(transfer(ClassificationSync.createHello()));
+        assertNotNull(request);
+        assertNull(ClassificationTable.client());
+
+        FriendlyByteBuf table = ClassificationSync.handleServer(transfer(request));
+        assertNotNull(table);
+        assertNull(ClassificationSync.handleClient(transfer(table)));
+
+        ClassificationTable client = ClassificationTable.client();
+        assertNotNull(client);
+        assertEquals(ClassificationTable.server().getHash(), client.getHash());
+        for (Block block : new Block[]{Blocks.OAK_LOG, Blocks.OAK_LEAVES, Blocks.STONE}) {
+            assertEquals(TreeBlockDetector.getInstance().detectBlockType(block.defaultBlockState()),
+                client.get(block.defaultBlockState()));
+        }
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testCachedTable_ShouldSkipTransfer() {
+        FriendlyByteBuf request = ClassificationSync.handleClient(transfer(ClassificationSync.createHello()));
+        ClassificationSync.handleClient(transfer(ClassificationSync.handleServer(transfer(request))));
+        ClassificationSync.onDisconnect();
+        assertNull(ClassificationTable.client());
+
+        assertNull(ClassificationSync.handleClient(transfer(ClassificationSync.createHello())));
+        assertNotNull(ClassificationTable.client());
+        assertEquals(ClassificationTable.server().get(Blocks.OAK_LOG.defaultBlockState()),
+            ClassificationTable.lookupClient(Blocks.OAK_LOG.defaultBlockState()));
+    }
+
+    @Test
+    void testEncodedTable_ShouldBeCompact() {
+        ClassificationTable table = ClassificationTable.server();
+
+        assertEquals(Block.BLOCK_STATE_REGISTRY.size(), table.size());
+        assertTrue(table.getEncoded().length < table.size() / 4, "encoded size " + table.getEncoded().length);
+        assertEquals(table.getHash(), ClassificationTable.decode(table.getEncoded()).getHash());
+    }
+
+    @Test
+    void testCorruptTable_ShouldBeRejected() {
+        byte[] encoded = ClassificationTable.server().getEncoded();
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length / 2);
+
+        assertThrows(IllegalArgumentException.class, () -> ClassificationTable.decode(truncated));
+    }
+
+    @Test
+    void testServerStop_ShouldDropServerTable() {
+        ClassificationSync.onServerStarted();
+        ClassificationTable first = ClassificationTable.server();
+
+        ClassificationSync.onServerStopped();
+        ClassificationSync.onServerStarted();
+
+        assertNotSame(first, ClassificationTable.server());
+        assertEquals(first.getHash(), ClassificationTable.server().getHash());
+    }
+
+    @Test
+    void testRequestWithoutBuiltTable_ShouldNotBeAnswered() {
+        FriendlyByteBuf request = ClassificationSync.handleClient(transfer(ClassificationSync.createHello()));
+        ClassificationSync.onServerStopped();
+
+        assertNull(ClassificationSync.handleServer(transfer(request)));
+        assertNull(ClassificationTable.serverIfBuilt());
+    }
+}
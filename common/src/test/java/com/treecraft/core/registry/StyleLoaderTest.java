@@ -0,0 +1,135 @@
+package com.treecraft.core.registry;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.api.events.StylesRegisteredEvent;
+import com.treecraft.core.api.events.TreeCraftEvents;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StyleLoaderTest {
+
+    @TempDir
+    Path configDir;
+
+    private Path stylesDir;
+
+    private final List<StylesRegisteredEvent> batches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        stylesDir = Files.createDirectories(configDir.resolve("styles"));
+        StyleRegistry.clear();
+        StyleLoader.resetForTest();
+        TreeCraftEvents.resetForTest();
+        TreeCraftEvents.onStylesRegistered(batches::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        StyleRegistry.clear();
+        TreeCraftEvents.resetForTest();
+    }
+
+    private void writeStyle(String file, String id, String trunk) throws IOException {
+        Files.writeString(stylesDir.resolve(file),
+            "{\"id\": \"" + id + "\", \"palette\": {\"trunk\": [\"" + trunk + "\"]}}");
+    }
+
+    @Test
+    void testReload_ShouldApplyOnlyChangedFiles() throws IOException {
+        writeStyle("oak.json", "test:oak", "minecraft:oak_log");
+        writeStyle("birch.json", "test:birch", "minecraft:birch_log");
+        StyleLoader.reload(stylesDir);
+
+        assertEquals(2, StyleRegistry.getStyleCount());
+        assertEquals(1, batches.size());
+
+        StyleLoader.reload(stylesDir);
+        assertEquals(1, batches.size());
+
+        writeStyle("oak.json", "test:oak", "minecraft:dark_oak_log");
+        StyleLoader.reload(stylesDir);
+
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(1).getReplacedStyles().size());
+        assertEquals(Blocks.DARK_OAK_LOG.defaultBlockState(), StyleRegistry.getStyle(new ResourceLocation("test", "oak"))
+            .orElseThrow().getBlockPalette().get(TreeComponentType.TRUNK).get(0));
+    }
+
+    @Test
+    void testReload_DeletedFile_ShouldUnregisterItsStyles() throws IOException {
+        writeStyle("oak.json", "test:oak", "minecraft:oak_log");
+        writeStyle("birch.json", "test:birch", "minecraft:birch_log");
+        StyleLoader.reload(stylesDir);
+
+        Files.delete(stylesDir.resolve("birch.json"));
+        StyleLoader.reload(stylesDir);
+
+        assertFalse(StyleRegistry.hasStyle(new ResourceLocation("test", "birch")));
+        assertTrue(StyleRegistry.hasStyle(new ResourceLocation("test", "oak")));
+        assertEquals(List.of(new ResourceLocation("test", "birch")), batches.get(1).getRemovedIds());
+    }
+
+    @Test
+    void testUnchangedInputs_ShouldLoadFromBundle() throws IOException {
+        writeStyle("oak.json", "test:oak", "minecraft:oak_log");
+        StyleLoader.reload(stylesDir);
+        Path bundle = configDir.resolve("cache/styles.bundle");
+        assertTrue(Files.exists(bundle));
+
+        // Parsing the JSON again would rewrite the bundle
+        FileTime written = FileTime.fromMillis(1_000_000_000L);
+        Files.setLastModifiedTime(bundle, written);
+
+        StyleRegistry.clear();
+        StyleLoader.resetForTest();
+        StyleLoader.reload(stylesDir);
+
+        assertTrue(StyleRegistry.hasStyle(new ResourceLocation("test", "oak")));
+        assertEquals(written, Files.getLastModifiedTime(bundle));
+    }
+
+    @Test
+    void testChangedContent_ShouldIgnoreBundleWithSameSizeAndTime() throws IOException {
+        writeStyle("oak.json", "test:oak", "minecraft:oak_log");
+        StyleLoader.reload(stylesDir);
+
+        Path file = stylesDir.resolve("oak.json");
+        FileTime modified = Files.getLastModifiedTime(file);
+        writeStyle("oak.json", "test:oax", "minecraft:oak_log");
+        Files.setLastModifiedTime(file, modified);
+
+        StyleRegistry.clear();
+        StyleLoader.resetForTest();
+        StyleLoader.reload(stylesDir);
+
+        assertTrue(StyleRegistry.hasStyle(new ResourceLocation("test", "oax")));
+        assertFalse(StyleRegistry.hasStyle(new ResourceLocation("test", "oak")));
+    }
+
+    @Test
+    void testWeightedEntries_ShouldParseWeights() throws IOException {
+        Files.writeString(stylesDir.resolve("mossy.json"),
+            "{\"id\": \"test:mossy\", \"palette\": {\"trunk\": [\"minecraft:oak_log\", {\"block\": \"minecraft:mossy_cobblestone\", \"weight\": 0.25}]}}");
+        StyleLoader.reload(stylesDir);
+
+        BlockStyle style = StyleRegistry.getStyle(new ResourceLocation("test", "mossy")).orElseThrow();
+        assertEquals(1.0f, style.getWeight(TreeComponentType.TRUNK, 0));
+        assertEquals(0.25f, style.getWeight(TreeComponentType.TRUNK, 1));
+    }
+}
@@ -0,0 +1,203 @@
+package com.treecraft.core.registry;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.StyleMetadata;
+import com.treecraft.core.api.StyleSlot;
+import com.treecraft.core.api.TreeComponentType;
+import com.treecraft.core.api.events.StylesRegisteredEvent;
+import com.treecraft.core.api.events.TreeCraftEvents;
+import com.treecraft.core.test.util.MockBlockState;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Block;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class StyleRegistryTest {
+
+    private Block oakLog;
+    private Block oakLeaves;
+    private Block birchLog;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        StyleRegistry.clear();
+        TreeCraftEvents.resetForTest();
+        oakLog = block();
+        oakLeaves = block();
+        birchLog = block();
+    }
+
+    @AfterEach
+    void tearDown() {
+        StyleRegistry.clear();
+        TreeCraftEvents.resetForTest();
+    }
+
+    private static Block block() {
+        MockBlockState state = new MockBlockState();
+        when(state.getBlock().defaultBlockState()).thenReturn(state.get());
+        return state.getBlock();
+    }
+
+    private static BlockStyle style(String path, Block trunk, Block leaves) {
+        return new BlockStyle.Builder()
+            .id(new ResourceLocation("test", path))
+            .trunk(trunk)
+            .leaves(leaves)
+            .build();
+    }
+
+    @Test
+    void testGetSlots_ShouldFindStyleAndComponent() {
+        BlockStyle oak = style("oak", oakLog, oakLeaves);
+        StyleRegistry.register(oak);
+
+        assertEquals(List.of(new StyleSlot(oak, TreeComponentType.TRUNK)), StyleRegistry.getSlots(oakLog));
+        assertEquals(List.of(new StyleSlot(oak, TreeComponentType.LEAVES)), StyleRegistry.getSlots(oakLeaves.defaultBlockState()));
+        assertTrue(StyleRegistry.getSlots(birchLog).isEmpty());
+    }
+
+    @Test
+    void testSharedBlock_ShouldListEveryStyle() {
+        BlockStyle oak = style("oak", oakLog, oakLeaves);
+        BlockStyle mixed = style("mixed", birchLog, oakLeaves);
+        StyleRegistry.register(oak);
+        StyleRegistry.register(mixed);
+
+        assertEquals(List.of(oak, mixed), StyleRegistry.getStylesContaining(oakLeaves));
+    }
+
+    @Test
+    void testOverwrite_ShouldReplaceOldSlots() {
+        StyleRegistry.register(style("oak", oakLog, oakLeaves));
+        BlockStyle replacement = style("oak", birchLog, oakLeaves);
+        StyleRegistry.register(replacement);
+
+        assertTrue(StyleRegistry.getSlots(oakLog).isEmpty());
+        assertEquals(List.of(replacement), StyleRegistry.getStylesContaining(oakLeaves));
+    }
+
+    @Test
+    void testClear_ShouldEmptyIndex() {
+        StyleRegistry.register(style("oak", oakLog, oakLeaves));
+        StyleRegistry.clear();
+
+        assertTrue(StyleRegistry.getSlots(oakLog).isEmpty());
+    }
+
+    @Test
+    void testMetadataAndModIndexes_ShouldMatchRegisteredStyles() {
+        BlockStyle autumn = new BlockStyle.Builder()
+            .id(new ResourceLocation("other", "autumn"))
+            .trunk(oakLog)
+            .metadata(new StyleMetadata("warm", "classic", true))
+            .build();
+        BlockStyle oak = style("oak", oakLog, oakLeaves);
+        StyleRegistry.register(oak);
+        StyleRegistry.register(autumn);
+
+        assertEquals(List.of(oak), StyleRegistry.getStylesByMod("test"));
+        assertEquals(List.of(autumn), StyleRegistry.getStylesByColorScheme("warm"));
+        assertEquals(List.of(autumn), StyleRegistry.getSeasonalStyles());
+        assertTrue(StyleRegistry.getStylesByTextureStyle("modern").isEmpty());
+    }
+
+    @Test
+    void testSnapshot_ShouldNotChangeAfterLaterRegistration() {
+        StyleRegistry.register(style("oak", oakLog, oakLeaves));
+        StyleRegistry.Snapshot before = StyleRegistry.snapshot();
+
+        StyleRegistry.register(style("birch", birchLog, oakLeaves));
+
+        assertEquals(1, before.size());
+        assertEquals(2, StyleRegistry.snapshot().size());
+    }
+
+    @Test
+    void testConcurrentRegistration_ShouldKeepEveryStyle() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    StyleRegistry.register(style("style_" + thread + "_" + i, oakLog, oakLeaves));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200, StyleRegistry.getStyleCount());
+        assertEquals(200, StyleRegistry.getStylesByMod("test").size());
+        assertEquals(200, StyleRegistry.getSlots(oakLog).size());
+    }
+
+    @Test
+    void testRegisterAll_ShouldPostOneBatchEvent() {
+        StyleRegistry.register(style("oak", oakLog, oakLeaves));
+        List<StylesRegisteredEvent> batches = new ArrayList<>();
+        AtomicInteger single = new AtomicInteger();
+        TreeCraftEvents.onStylesRegistered(batches::add);
+        TreeCraftEvents.onStyleRegistered(e -> single.incrementAndGet());
+
+        BlockStyle birch = style("birch", birchLog, oakLeaves);
+        BlockStyle newOak = style("oak", oakLog, oakLeaves);
+        StyleRegistry.registerAll(List.of(birch, newOak));
+
+        assertEquals(1, batches.size());
+        assertEquals(List.of(birch), batches.get(0).getAddedStyles());
+        assertEquals(List.of(newOak), batches.get(0).getReplacedStyles());
+        assertEquals(2, single.get());
+        assertEquals(2, StyleRegistry.getStyleCount());
+    }
+
+    @Test
+    void testRegisterAll_InvalidStyle_ShouldRegisterNothing() {
+        List<BlockStyle> styles = new ArrayList<>();
+        styles.add(style("oak", oakLog, oakLeaves));
+        styles.add(null);
+
+        assertThrows(IllegalArgumentException.class, () -> StyleRegistry.registerAll(styles));
+        assertEquals(0, StyleRegistry.getStyleCount());
+    }
+
+    @Test
+    void testQuery_ShouldIntersectIndexes() {
+        BlockStyle warmRooted = new BlockStyle.Builder()
+            .id(new ResourceLocation("test", "warm_rooted"))
+            .trunk(oakLog)
+            .roots(birchLog)
+            .metadata(new StyleMetadata("warm", "classic", true))
+            .build();
+        BlockStyle warm = new BlockStyle.Builder()
+            .id(new ResourceLocation("test", "warm"))
+            .trunk(oakLog)
+            .metadata(new StyleMetadata("warm", "classic", false))
+            .build();
+        BlockStyle cold = new BlockStyle.Builder()
+            .id(new ResourceLocation("other", "cold"))
+            .trunk(oakLog)
+            .roots(birchLog)
+            .metadata(new StyleMetadata("cold", "classic", true))
+            .build();
+        StyleRegistry.registerAll(List.of(warmRooted, warm, cold));
+
+        assertEquals(List.of(warmRooted, warm), StyleRegistry.query().colorScheme("warm").list());
+        assertEquals(List.of(warmRooted), StyleRegistry.query().colorScheme("warm").withComponent(TreeComponentType.ROOT).list());
+        assertEquals(List.of(warm), StyleRegistry.query().withoutComponent(TreeComponentType.ROOT).list());
+        assertEquals(List.of(cold), StyleRegistry.query().seasonal(true).mod("other").list());
+        assertEquals(2, StyleRegistry.query().textureStyle("classic").filter(s -> s != warm).count());
+        assertTrue(StyleRegistry.query().colorScheme("missing").first().isEmpty());
+    }
+}
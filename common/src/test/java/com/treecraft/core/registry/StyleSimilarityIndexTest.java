@@ -0,0 +1,75 @@
+package com.treecraft.core.registry;
+
+import com.treecraft.core.api.BlockStyle;
+import com.treecraft.core.api.StyleMetadata;
+import com.treecraft.core.api.TreeComponentType;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StyleSimilarityIndexTest {
+
+    private BlockStyle oak;
+    private BlockStyle birch;
+    private BlockStyle crimson;
+
+    @BeforeEach
+    void setUp() {
+        com.treecraft.core.test.util.TestBootstrap.init();
+        StyleRegistry.clear();
+
+        oak = new BlockStyle.Builder()
+            .id(new ResourceLocation("minecraft", "oak"))
+            .trunk(Blocks.OAK_LOG)
+            .leaves(Blocks.OAK_LEAVES)
+            .metadata(new StyleMetadata("green", "vanilla", false))
+            .build();
+        birch = new BlockStyle.Builder()
+            .id(new ResourceLocation("minecraft", "birch"))
+            .trunk(Blocks.BIRCH_LOG)
+            .leaves(Blocks.BIRCH_LEAVES)
+            .metadata(new StyleMetadata("light", "vanilla", false))
+            .build();
+        crimson = new BlockStyle.Builder()
+            .id(new ResourceLocation("minecraft", "crimson"))
+            .trunk(Blocks.CRIMSON_STEM)
+            .leaves(Blocks.NETHER_WART_BLOCK)
+            .build();
+        StyleRegistry.registerAll(List.of(oak, birch, crimson));
+    }
+
+    @AfterEach
+    void tearDown() {
+        StyleRegistry.clear();
+    }
+
+    @Test
+    void testSingleBlock_ShouldRankOwningStyleFirst() {
+        List<StyleMatch> matches = StyleRegistry.findSimilarStyles(Blocks.BIRCH_LOG.defaultBlockState(), TreeComponentType.TRUNK, 2);
+
+        assertEquals(2, matches.size());
+        assertSame(birch, matches.get(0).getStyle());
+        assertTrue(matches.get(0).getScore() > matches.get(1).getScore());
+    }
+
+    @Test
+    void testRelatedBlock_ShouldMatchByNameTokens() {
+        List<StyleMatch> matches = StyleRegistry.findSimilarStyles(Blocks.STRIPPED_OAK_LOG.defaultBlockState(), TreeComponentType.TRUNK, 1);
+
+        assertSame(oak, matches.get(0).getStyle());
+    }
+
+    @Test
+    void testStyleQuery_ShouldExcludeItself() {
+        List<StyleMatch> matches = StyleRegistry.findSimilarStyles(oak, 5);
+
+        assertEquals(2, matches.size());
+        assertTrue(matches.stream().noneMatch(m -> m.getStyle() == oak));
+    }
+}
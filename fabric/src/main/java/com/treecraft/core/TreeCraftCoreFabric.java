@@ -3,8 +3,17 @@ package com.treecraft.core;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.treecraft.core.config.CoreConfig;
+import com.treecraft.core.detection.ChunkPreIndexer;
+import com.treecraft.core.detection.TreeSpatialIndex;
+import com.treecraft.core.network.ClassificationSync;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.S2CPlayChannelEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.network.FriendlyByteBuf;
 
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -20,6 +29,35 @@ public class TreeCraftCoreFabric implements ModInitializer {
         loadConfig();
 
         TreeCraftCore.init();
+
+        ServerChunkEvents.CHUNK_LOAD.register(ChunkPreIndexer::onChunkLoad);
+        ServerChunkEvents.CHUNK_UNLOAD.register((level, chunk) -> {
+            ChunkPreIndexer.onChunkUnload(level, chunk);
+            TreeSpatialIndex.onChunkUnload(level, chunk.getPos());
+        });
+        ServerTickEvents.END_SERVER_TICK.register(TreeCraftCore::onServerTick);
+        ServerLifecycleEvents.SERVER_STARTED.register(TreeCraftCore::onServerStarted);
+        ServerLifecycleEvents.SERVER_STOPPED.register(TreeCraftCore::onServerStopped);
+
+        registerClassificationSync();
+    }
+
+    private void registerClassificationSync() {
+        // Greet clients once they announce the channel, so vanilla clients never see it
+        S2CPlayChannelEvents.REGISTER.register((handler, sender, server, channels) -> {
+            if (channels.contains(ClassificationSync.CHANNEL)) {
+                FriendlyByteBuf hello = ClassificationSync.createHello();
+                if (hello != null) {
+                    sender.sendPacket(ClassificationSync.CHANNEL, hello);
+                }
+            }
+        });
+        ServerPlayNetworking.registerGlobalReceiver(ClassificationSync.CHANNEL, (server, player, handler, buf, sender) -> {
+            FriendlyByteBuf reply = ClassificationSync.handleServer(buf);
+            if (reply != null) {
+                sender.sendPacket(ClassificationSync.CHANNEL, reply);
+            }
+        });
     }
 
     private void loadConfig() {
@@ -52,12 +90,23 @@ public class TreeCraftCoreFabric implements ModInitializer {
         CoreConfig.enableAutoDetection = data.enableAutoDetection;
         CoreConfig.minConfidenceThreshold = data.minConfidenceThreshold;
         CoreConfig.maxTreeSize = data.maxTreeSize;
+        CoreConfig.enableTemplateMatching = data.enableTemplateMatching;
         CoreConfig.enableConquestSupport = data.enableConquestSupport;
         CoreConfig.enableDynamicTreesSupport = data.enableDynamicTreesSupport;
         CoreConfig.enableVanillaDetection = data.enableVanillaDetection;
         CoreConfig.detectionCacheSize = data.detectionCacheSize;
         CoreConfig.asyncDetection = data.asyncDetection;
         CoreConfig.maxDetectionThreads = data.maxDetectionThreads;
+        CoreConfig.speculativeDetection = data.speculativeDetection;
+        CoreConfig.indexDetectedTrees = data.indexDetectedTrees;
+        CoreConfig.backgroundIndexing = data.backgroundIndexing;
+        CoreConfig.indexChunksPerSecond = data.indexChunksPerSecond;
+        CoreConfig.indexTickBudgetMs = data.indexTickBudgetMs;
+        CoreConfig.indexPauseMspt = data.indexPauseMspt;
+        CoreConfig.styleLoaderThreads = data.styleLoaderThreads;
+        CoreConfig.watchStyleFiles = data.watchStyleFiles;
+        CoreConfig.useStyleBundle = data.useStyleBundle;
+        CoreConfig.syncClassificationTable = data.syncClassificationTable;
         CoreConfig.debugMode = data.debugMode;
         CoreConfig.logDetections = data.logDetections;
     }
@@ -66,12 +115,23 @@ public class TreeCraftCoreFabric implements ModInitializer {
         boolean enableAutoDetection = true;
         float minConfidenceThreshold = 0.5f;
         int maxTreeSize = 10000;
+        boolean enableTemplateMatching = true;
         boolean enableConquestSupport = true;
         boolean enableDynamicTreesSupport = true;
         boolean enableVanillaDetection = true;
         int detectionCacheSize = 1000;
         boolean asyncDetection = true;
         int maxDetectionThreads = 2;
+        boolean speculativeDetection = true;
+        boolean indexDetectedTrees = true;
+        boolean backgroundIndexing = false;
+        int indexChunksPerSecond = 20;
+        int indexTickBudgetMs = 2;
+        int indexPauseMspt = 40;
+        int styleLoaderThreads = 4;
+        boolean watchStyleFiles = false;
+        boolean useStyleBundle = true;
+        boolean syncClassificationTable = true;
         boolean debugMode = false;
         boolean logDetections = false;
     }
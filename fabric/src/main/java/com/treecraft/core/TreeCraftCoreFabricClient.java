@@ -0,0 +1,26 @@
+package com.treecraft.core;
+
+import com.treecraft.core.network.ClassificationSync;
+import io.netty.buffer.Unpooled;
+import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.network.FriendlyByteBuf;
+
+public class TreeCraftCoreFabricClient implements ClientModInitializer {
+
+    @Override
+    public void onInitializeClient() {
+        ClientPlayNetworking.registerGlobalReceiver(ClassificationSync.CHANNEL, (client, handler, buf, sender) -> {
+            // The buffer is released after this returns; the cache is touched on the client thread
+            FriendlyByteBuf payload = new FriendlyByteBuf(Unpooled.copiedBuffer(buf));
+            client.execute(() -> {
+                FriendlyByteBuf reply = ClassificationSync.handleClient(payload);
+                if (reply != null) {
+                    sender.sendPacket(ClassificationSync.CHANNEL, reply);
+                }
+            });
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> ClassificationSync.onDisconnect());
+    }
+}
@@ -1,13 +1,28 @@
 package com.treecraft.core;
 
+import com.treecraft.core.client.ForgeClientEvents;
 import com.treecraft.core.config.CoreConfig;
+import com.treecraft.core.detection.ChunkPreIndexer;
+import com.treecraft.core.detection.TreeSpatialIndex;
+import com.treecraft.core.network.ForgeClassificationChannel;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraftforge.common.ForgeConfigSpec;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.event.server.ServerStoppedEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.event.config.ModConfigEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
+import net.minecraftforge.fml.loading.FMLEnvironment;
+import net.minecraftforge.server.ServerLifecycleHooks;
 import org.apache.commons.lang3.tuple.Pair;
 
 @Mod(Constants.MOD_ID)
@@ -26,6 +41,17 @@ public class TreeCraftCoreForge {
         ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, COMMON_SPEC);
 
         FMLJavaModLoadingContext.get().getModEventBus().register(this);
+        MinecraftForge.EVENT_BUS.addListener(this::onChunkLoad);
+        MinecraftForge.EVENT_BUS.addListener(this::onChunkUnload);
+        MinecraftForge.EVENT_BUS.addListener(this::onServerTick);
+        MinecraftForge.EVENT_BUS.addListener(this::onServerStarted);
+        MinecraftForge.EVENT_BUS.addListener(this::onServerStopped);
+        MinecraftForge.EVENT_BUS.addListener(this::onPlayerLoggedIn);
+
+        ForgeClassificationChannel.register();
+        if (FMLEnvironment.dist.isClient()) {
+            ForgeClientEvents.register();
+        }
 
         TreeCraftCore.init();
     }
@@ -37,16 +63,60 @@ public class TreeCraftCoreForge {
         }
     }
 
+    private void onChunkLoad(final ChunkEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk) {
+            ChunkPreIndexer.onChunkLoad(level, chunk);
+        }
+    }
+
+    private void onChunkUnload(final ChunkEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk) {
+            ChunkPreIndexer.onChunkUnload(level, chunk);
+            TreeSpatialIndex.onChunkUnload(level, chunk.getPos());
+        }
+    }
+
+    private void onServerTick(final TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            TreeCraftCore.onServerTick(ServerLifecycleHooks.getCurrentServer());
+        }
+    }
+
+    private void onServerStarted(final ServerStartedEvent event) {
+        TreeCraftCore.onServerStarted(event.getServer());
+    }
+
+    private void onServerStopped(final ServerStoppedEvent event) {
+        TreeCraftCore.onServerStopped(event.getServer());
+    }
+
+    private void onPlayerLoggedIn(final PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            ForgeClassificationChannel.onPlayerLoggedIn(player);
+        }
+    }
+
     private void updateCommonConfig() {
         CoreConfig.enableAutoDetection = COMMON_CONFIG.enableAutoDetection.get();
         CoreConfig.minConfidenceThreshold = COMMON_CONFIG.minConfidenceThreshold.get().floatValue();
         CoreConfig.maxTreeSize = COMMON_CONFIG.maxTreeSize.get();
+        CoreConfig.enableTemplateMatching = COMMON_CONFIG.enableTemplateMatching.get();
         CoreConfig.enableConquestSupport = COMMON_CONFIG.enableConquestSupport.get();
         CoreConfig.enableDynamicTreesSupport = COMMON_CONFIG.enableDynamicTreesSupport.get();
         CoreConfig.enableVanillaDetection = COMMON_CONFIG.enableVanillaDetection.get();
         CoreConfig.detectionCacheSize = COMMON_CONFIG.detectionCacheSize.get();
         CoreConfig.asyncDetection = COMMON_CONFIG.asyncDetection.get();
         CoreConfig.maxDetectionThreads = COMMON_CONFIG.maxDetectionThreads.get();
+        CoreConfig.speculativeDetection = COMMON_CONFIG.speculativeDetection.get();
+        CoreConfig.indexDetectedTrees = COMMON_CONFIG.indexDetectedTrees.get();
+        CoreConfig.backgroundIndexing = COMMON_CONFIG.backgroundIndexing.get();
+        CoreConfig.indexChunksPerSecond = COMMON_CONFIG.indexChunksPerSecond.get();
+        CoreConfig.indexTickBudgetMs = COMMON_CONFIG.indexTickBudgetMs.get();
+        CoreConfig.indexPauseMspt = COMMON_CONFIG.indexPauseMspt.get();
+        CoreConfig.styleLoaderThreads = COMMON_CONFIG.styleLoaderThreads.get();
+        CoreConfig.watchStyleFiles = COMMON_CONFIG.watchStyleFiles.get();
+        CoreConfig.useStyleBundle = COMMON_CONFIG.useStyleBundle.get();
+        CoreConfig.syncClassificationTable = COMMON_CONFIG.syncClassificationTable.get();
         CoreConfig.debugMode = COMMON_CONFIG.debugMode.get();
         CoreConfig.logDetections = COMMON_CONFIG.logDetections.get();
     }
@@ -55,6 +125,7 @@ public class TreeCraftCoreForge {
         public final ForgeConfigSpec.BooleanValue enableAutoDetection;
         public final ForgeConfigSpec.DoubleValue minConfidenceThreshold;
         public final ForgeConfigSpec.IntValue maxTreeSize;
+        public final ForgeConfigSpec.BooleanValue enableTemplateMatching;
 
         public final ForgeConfigSpec.BooleanValue enableConquestSupport;
         public final ForgeConfigSpec.BooleanValue enableDynamicTreesSupport;
@@ -63,6 +134,16 @@ public class TreeCraftCoreForge {
         public final ForgeConfigSpec.IntValue detectionCacheSize;
         public final ForgeConfigSpec.BooleanValue asyncDetection;
         public final ForgeConfigSpec.IntValue maxDetectionThreads;
+        public final ForgeConfigSpec.BooleanValue speculativeDetection;
+        public final ForgeConfigSpec.BooleanValue indexDetectedTrees;
+        public final ForgeConfigSpec.BooleanValue backgroundIndexing;
+        public final ForgeConfigSpec.IntValue indexChunksPerSecond;
+        public final ForgeConfigSpec.IntValue indexTickBudgetMs;
+        public final ForgeConfigSpec.IntValue indexPauseMspt;
+        public final ForgeConfigSpec.IntValue styleLoaderThreads;
+        public final ForgeConfigSpec.BooleanValue watchStyleFiles;
+        public final ForgeConfigSpec.BooleanValue useStyleBundle;
+        public final ForgeConfigSpec.BooleanValue syncClassificationTable;
 
         public final ForgeConfigSpec.BooleanValue debugMode;
         public final ForgeConfigSpec.BooleanValue logDetections;
@@ -72,6 +153,7 @@ public class TreeCraftCoreForge {
             enableAutoDetection = builder.define("enableAutoDetection", true);
             minConfidenceThreshold = builder.defineInRange("minConfidenceThreshold", 0.5, 0.0, 1.0);
             maxTreeSize = builder.defineInRange("maxTreeSize", 10000, 1, 100000);
+            enableTemplateMatching = builder.define("enableTemplateMatching", true);
             builder.pop();
 
             builder.push("compatibility");
@@ -84,6 +166,16 @@ public class TreeCraftCoreForge {
             detectionCacheSize = builder.defineInRange("detectionCacheSize", 1000, 100, 10000);
             asyncDetection = builder.define("asyncDetection", true);
             maxDetectionThreads = builder.defineInRange("maxDetectionThreads", 2, 1, 8);
+            speculativeDetection = builder.define("speculativeDetection", true);
+            indexDetectedTrees = builder.define("indexDetectedTrees", true);
+            backgroundIndexing = builder.define("backgroundIndexing", false);
+            indexChunksPerSecond = builder.defineInRange("indexChunksPerSecond", 20, 1, 1000);
+            indexTickBudgetMs = builder.defineInRange("indexTickBudgetMs", 2, 1, 50);
+            indexPauseMspt = builder.defineInRange("indexPauseMspt", 40, 1, 1000);
+            styleLoaderThreads = builder.defineInRange("styleLoaderThreads", 4, 1, 16);
+            watchStyleFiles = builder.define("watchStyleFiles", false);
+            useStyleBundle = builder.define("useStyleBundle", true);
+            syncClassificationTable = builder.define("syncClassificationTable", true);
             builder.pop();
 
             builder.push("debug");
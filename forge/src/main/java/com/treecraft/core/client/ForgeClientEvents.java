@@ -0,0 +1,19 @@
+package com.treecraft.core.client;
+
+import com.treecraft.core.network.ClassificationSync;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.common.MinecraftForge;
+
+/**
+ * Client-only listeners, kept apart so dedicated servers never load client event classes
+ */
+public class ForgeClientEvents {
+
+    public static void register() {
+        MinecraftForge.EVENT_BUS.addListener(ForgeClientEvents::onLoggingOut);
+    }
+
+    private static void onLoggingOut(final ClientPlayerNetworkEvent.LoggingOut event) {
+        ClassificationSync.onDisconnect();
+    }
+}
@@ -0,0 +1,80 @@
+package com.treecraft.core.network;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.NetworkEvent;
+import net.minecraftforge.network.NetworkRegistry;
+import net.minecraftforge.network.PacketDistributor;
+import net.minecraftforge.network.simple.SimpleChannel;
+
+import java.util.function.Supplier;
+
+/**
+ * Carries {@link ClassificationSync} payloads over a Forge channel. Clients and servers without
+ * the mod are still accepted.
+ */
+public class ForgeClassificationChannel {
+    private static final String PROTOCOL = "1";
+    private static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(
+        ClassificationSync.CHANNEL,
+        () -> PROTOCOL,
+        NetworkRegistry.acceptMissingOr(PROTOCOL),
+        NetworkRegistry.acceptMissingOr(PROTOCOL)
+    );
+
+    public static void register() {
+        CHANNEL.messageBuilder(Payload.class, 0)
+            .encoder(Payload::encode)
+            .decoder(Payload::decode)
+            .consumerNetworkThread(ForgeClassificationChannel::handle)
+            .add();
+    }
+
+    /**
+     * Greet a player that just logged in, if their client has the channel
+     */
+    public static void onPlayerLoggedIn(ServerPlayer player) {
+        if (!CHANNEL.isRemotePresent(player.connection.connection)) return;
+
+        FriendlyByteBuf hello = ClassificationSync.createHello();
+        if (hello != null) {
+            CHANNEL.send(PacketDistributor.PLAYER.with(() -> player), new Payload(hello));
+        }
+    }
+
+    private static void handle(Payload payload, Supplier<NetworkEvent.Context> context) {
+        NetworkEvent.Context ctx = context.get();
+        if (ctx.getDirection().getReceptionSide().isServer()) {
+            reply(ClassificationSync.handleServer(payload.buf), ctx);
+        } else {
+            // The client reads and writes its table cache, keep that off the network thread
+            ctx.enqueueWork(() -> reply(ClassificationSync.handleClient(payload.buf), ctx));
+        }
+        ctx.setPacketHandled(true);
+    }
+
+    private static void reply(FriendlyByteBuf reply, NetworkEvent.Context ctx) {
+        if (reply != null) {
+            CHANNEL.reply(new Payload(reply), ctx);
+        }
+    }
+
+    private static final class Payload {
+        private final FriendlyByteBuf buf;
+
+        Payload(FriendlyByteBuf buf) {
+            this.buf = buf;
+        }
+
+        void encode(FriendlyByteBuf out) {
+            out.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        }
+
+        static Payload decode(FriendlyByteBuf in) {
+            FriendlyByteBuf copy = new FriendlyByteBuf(Unpooled.buffer(in.readableBytes()));
+            copy.writeBytes(in);
+            return new Payload(copy);
+        }
+    }
+}